@@ -1,14 +1,21 @@
 package aocutil.algorithm;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.Stack;
 import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import aocutil.collections.LongIntHashMap;
 
 /**
  * Skeleton implementation of a classic BFS search
@@ -64,44 +71,39 @@ public class BreadthFirstSearch {
 	 * @return The distance from initial to target in terms of number of BFS iterations
 	 */
 	public static <T> Map<T, Long> getDistances( final T initial, final Collection<T> targets, final Function<T, Collection<T>> nextfunc, final boolean findall ) {
-		// initialise explore stack from initial state and keep track of visited
-		// values
+		// use a set of targets for fast lookups
+		final Set<T> targetset = targets instanceof Set ? (Set<T>)targets : new HashSet<>( targets );
+		
+		// initialise explore queue from initial state and keep track of visited
+		// values, values are marked visited as soon as they are queued
 		final Set<T> visited = new HashSet<>( );
-		Stack<T> explore = new Stack<>( );
-		explore.push( initial );
+		final ArrayDeque<T> explore = new ArrayDeque<>( );
+		visited.add( initial );
+		explore.add( initial );
 		
-		// set distance 0 to initial value if it is in the target list
-		final Map<T, Long> distances = new HashMap<>( targets.size( ) );
+		// keep exploring until no new values arise, the number of values left in
+		// the current BFS layer marks when to increase the distance
+		final Map<T, Long> distances = new HashMap<>( targetset.size( ) );
 		long dist = 0;
-		if( targets.contains( initial ) ) {
-			distances.put( initial, dist );
-		}
-		
-		// keep exploring until no new values arise
-		while( !explore.empty( ) ) {
-
-			// build stack of values to evaluate in the next iteration
-			final Stack<T> explorenext = new Stack<>( );
-			while( !explore.empty( ) ) {
-				// explore a new value
-				final T exp = explore.pop( );
-				if( visited.contains( exp ) ) continue;
-				visited.add( exp );
+		int layer = 1;
+		while( !explore.isEmpty( ) ) {
+			final T exp = explore.poll( );
 
-				// check if this value is a target value
-				if( targets.contains( exp ) ) {
-					distances.put( exp, dist );
-					if( distances.size( ) == targets.size( ) ) return distances;
-				}
-								
-				// generate the next values from it that will be considered in the
-				// next iteration
-				explorenext.addAll( nextfunc.apply( exp ) );
+			// check if this value is a target value
+			if( targetset.contains( exp ) ) {
+				distances.put( exp, dist );
+				if( distances.size( ) == targetset.size( ) ) return distances;
 			}
 			
-			// swap sets and increase distance before the next iteration
-			explore = explorenext;
-			dist++;
+			// queue the next values that have not been seen before
+			for( final T next : nextfunc.apply( exp ) )
+				if( visited.add( next ) ) explore.add( next );
+			
+			// end of the current layer?
+			if( --layer == 0 ) {
+				layer = explore.size( );
+				dist++;
+			}
 		}
 		
 		// not all targets were found
@@ -122,31 +124,97 @@ public class BreadthFirstSearch {
 	 */
 	public static <T> Map<T, Long> getReachable( final T startvalue, final Function<T, Collection<T>> nextfunc ) {
 		final Map<T, Long> visited = new HashMap<>( );
-		Stack<T> explore = new Stack<>( );
+		final ArrayDeque<T> explore = new ArrayDeque<>( );
+		visited.put( startvalue, 0l );
 		explore.add( startvalue );
 		
-		long dist = 0;
-		while( !explore.empty( ) ) {
-			final Stack<T> toexplore = new Stack<>( );
+		long dist = 1;
+		int layer = 1;
+		while( !explore.isEmpty( ) ) {
+			final T exp = explore.poll( );
+			for( final T next : nextfunc.apply( exp ) )
+				if( visited.putIfAbsent( next, dist ) == null ) explore.add( next );
 			
-			while( !explore.empty( ) ) {
-				final T exp = explore.pop( );
-				if( visited.containsKey( exp ) ) continue;
-				visited.put( exp, dist );
-				
-				toexplore.addAll( nextfunc.apply( exp ) );
+			// end of the current layer?
+			if( --layer == 0 ) {
+				layer = explore.size( );
+				dist++;
+			}
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * BFS implementation over states that are encoded as primitive long, e.g.
+	 * packed coordinates, that finds the distance from the initial state to
+	 * the target state
+	 * 
+	 * @param initial The initial state
+	 * @param target The target state
+	 * @param nextfunc The function that generates the next states to consider
+	 * @return The distance from initial to target in terms of number of BFS
+	 *   iterations
+	 * @throws RuntimeException if the target is not reachable
+	 */
+	public static long getDistance( final long initial, final long target, final LongFunction<long[]> nextfunc ) {
+		final LongIntHashMap visited = explore( initial, target, true, nextfunc );
+		if( !visited.containsKey( target ) ) throw new RuntimeException( "Failed to find the target " + target + " from " + initial );
+		return visited.get( target );
+	}
+	
+	/**
+	 * Finds all states reachable from the given starting state, where states
+	 * are encoded as primitive long, e.g. packed coordinates
+	 * 
+	 * @param startvalue The initial state to start search from
+	 * @param nextfunc The function that generates the next states to explore
+	 * @return The map of all visited states and their distances
+	 */
+	public static LongIntHashMap getReachable( final long startvalue, final LongFunction<long[]> nextfunc ) {
+		return explore( startvalue, 0, false, nextfunc );
+	}
+	
+	/**
+	 * Performs a BFS over primitive long states. States are marked visited
+	 * when they are queued so that every state is queued only once, which
+	 * allows the queue to be a single array that is read front to back.
+	 * 
+	 * @param initial The initial state
+	 * @param target The target state to stop at, if enabled
+	 * @param stopattarget True to stop as soon as the target is found
+	 * @param nextfunc The function that generates the next states
+	 * @return The map of visited states and their distances
+	 */
+	private static LongIntHashMap explore( final long initial, final long target, final boolean stopattarget, final LongFunction<long[]> nextfunc ) {
+		final LongIntHashMap visited = new LongIntHashMap( );
+		long[] queue = new long[ 64 ];
+		int head = 0, tail = 0;
+		
+		visited.put( initial, 0 );
+		if( stopattarget && initial == target ) return visited;
+		queue[tail++] = initial;
+		
+		while( head < tail ) {
+			final long exp = queue[head++];
+			final int dist = visited.get( exp ) + 1;
+			for( final long next : nextfunc.apply( exp ) ) {
+				if( !visited.putIfAbsent( next, dist ) ) continue;
+				if( stopattarget && next == target ) return visited;
 				
+				if( tail == queue.length ) queue = Arrays.copyOf( queue, queue.length << 1 );
+				queue[tail++] = next;
 			}
-			dist++;
-			explore = toexplore;
-		}	
+		}
 		
-		return visited;		
+		return visited;
 	}
 	
 	/**
 	 * Finds the shortest path from the given starting value to the target value
-	 * using the given function to determine the new values to explore
+	 * using the given function to determine the new values to explore. Only
+	 * the predecessor of every value is stored during the search, the path is
+	 * reconstructed once the target is found.
 	 * 
 	 * @param <T> The type of value to search over
 	 * @param startvalue The initial value to start search from
@@ -155,8 +223,30 @@ public class BreadthFirstSearch {
 	 * @return The shortest path from the start value to the target value
 	 */
 	public static <T> List<T> getShortestPath( final T startvalue, final T targetvalue, final Function<T, Collection<T>> nextfunc ) {
-		// simply return first available shortest path
-		return getShortestPaths( startvalue, targetvalue, nextfunc ).get( 0 );
+		final Map<T, T> parents = new HashMap<>( );
+		final ArrayDeque<T> explore = new ArrayDeque<>( );
+		parents.put( startvalue, null );
+		explore.add( startvalue );
+		
+		boolean found = startvalue.equals( targetvalue );
+		while( !found && !explore.isEmpty( ) ) {
+			final T exp = explore.poll( );
+			for( final T next : nextfunc.apply( exp ) ) {
+				if( parents.containsKey( next ) ) continue;
+				parents.put( next, exp );
+				
+				if( next.equals( targetvalue ) ) { found = true; break; }
+				explore.add( next );
+			}
+		}
+		if( !found ) throw new RuntimeException( "Failed to find shortest path from " + startvalue + "  to " + targetvalue );
+		
+		// walk back from the target to reconstruct the path
+		final List<T> path = new ArrayList<>( );
+		for( T curr = targetvalue; curr != null; curr = parents.get( curr ) )
+			path.add( curr );
+		Collections.reverse( path );
+		return path;
 	}
 	
 	/**
@@ -170,51 +260,158 @@ public class BreadthFirstSearch {
 	 * @return The shortest path from the start value to the target value
 	 */
 	public static <T> List<List<T>> getShortestPaths( final T startvalue, final T targetvalue, final Function<T, Collection<T>> nextfunc ) {
-		// keep track of visited nodes
-		final Set<T> visited = new HashSet<>( );
-		
-		// keep track of explored paths
-		Stack<List<T>> explore = new Stack<>( );
-		explore.add( new ArrayList<>( ) );
-		explore.get( 0 ).add( startvalue );
+		final List<List<T>> paths = new ArrayList<>( );
+		final Iterator<List<T>> it = iterateShortestPaths( startvalue, targetvalue, nextfunc );
+		while( it.hasNext( ) ) paths.add( it.next( ) );
+		return paths;
+	}
+	
+	/**
+	 * Finds all shortest paths from the given starting value to the target value
+	 * and returns an iterator that produces them one by one. The search itself
+	 * only records the predecessors of every value that lie on a shortest path,
+	 * the actual paths are reconstructed lazily while iterating.
+	 * 
+	 * @param <T> The type of value to search over
+	 * @param startvalue The initial value to start search from
+	 * @param targetvalue The target value we are looking for
+	 * @param nextfunc The function that generates the next values to explore
+	 * @return Iterator over all shortest paths from the start value to the
+	 *   target value
+	 */
+	public static <T> Iterator<List<T>> iterateShortestPaths( final T startvalue, final T targetvalue, final Function<T, Collection<T>> nextfunc ) {
+		// keep track of the layer in which values have been reached first and the
+		// predecessors through which they are reached in that layer
+		final Map<T, Integer> reached = new HashMap<>( );
+		final Map<T, List<T>> parents = new HashMap<>( );
+		final ArrayDeque<T> explore = new ArrayDeque<>( );
+		reached.put( startvalue, 0 );
+		explore.add( startvalue );
 		
-		while( !explore.empty( ) ) {
-			final Stack<List<T>> toexplore = new Stack<>( );
-			final List<List<T>> shortest = new ArrayList<>( );
-			final Set<T> newvisited = new HashSet<>( );
+		boolean found = startvalue.equals( targetvalue );
+		int depth = 0;
+		int layer = found ? 0 : 1;
+		while( layer > 0 ) {
+			final T exp = explore.poll( );
 			
-			while( !explore.empty( ) ) {
-				final List<T> exp = explore.pop( );
-				
-				// 
-				final T currvalue = exp.get( exp.size( ) - 1 );
-				if( visited.contains( currvalue ) ) continue;
-				newvisited.add( currvalue );
-				
-				// check what new values we can reach from the end of the current path
-				final Collection<T> newvalues = nextfunc.apply( currvalue );
-				for( final T newvalue : newvalues ) {
+			for( final T next : nextfunc.apply( exp ) ) {
+				final Integer d = reached.putIfAbsent( next, depth + 1 );
+				if( d == null ) {
+					final List<T> P = new ArrayList<>( 1 );
+					P.add( exp );
+					parents.put( next, P );
 					
-					final List<T> newpath = new ArrayList<>( exp );
-					newpath.add( newvalue );
-					
-					// if it leads to the target value, add it as a solution, else try
-					// extending it
-					if( newvalue.equals( targetvalue ) ) 
-						shortest.add( newpath );
-					else
-						toexplore.add( newpath );
-				}				
+					// no need to explore beyond the target
+					if( next.equals( targetvalue ) ) found = true;
+					else explore.add( next );
+				} else if( d == depth + 1 ) {
+					parents.get( next ).add( exp );
+				}
 			}
 			
-			// we found at least one shortest path this iteration. All others will be
-			// longer so return it
-			if( shortest.size( ) > 0 ) return shortest;
+			// end of the current layer? Only stop after the layer in which the target
+			// is found has been completed so that we know all of its predecessors
+			if( --layer == 0 && !found ) {
+				layer = explore.size( );
+				depth++;
+			}
+		}
+		if( !found ) throw new RuntimeException( "Failed to find shortest path from " + startvalue + "  to " + targetvalue );
+		
+		return new PathIterator<>( startvalue, targetvalue, parents );
+	}
+	
+	/**
+	 * Iterator that enumerates all paths through a predecessor DAG, walking
+	 * back from the target to the start value
+	 *
+	 * @param <T> The type of the path values
+	 */
+	private static class PathIterator<T> implements Iterator<List<T>> {
+		/** The start value */
+		private final T start;
+		
+		/** The predecessors of every value */
+		private final Map<T, List<T>> parents;
+		
+		/** The values of the current path, from target to start */
+		private final List<T> nodes;
+		
+		/** Per value on the current path, the index of the predecessor chosen */
+		private final List<Integer> choices;
+		
+		/** True if the current path has not been returned yet */
+		private boolean ready;
+		
+		/**
+		 * Creates a new iterator over all paths from start to target
+		 * 
+		 * @param start The start value
+		 * @param target The target value
+		 * @param parents The predecessor DAG
+		 */
+		protected PathIterator( final T start, final T target, final Map<T, List<T>> parents ) {
+			this.start = start;
+			this.parents = parents;
+			this.nodes = new ArrayList<>( );
+			this.choices = new ArrayList<>( );
 			
-			explore = toexplore;
-			visited.addAll( newvisited );
-		}	
+			nodes.add( target );
+			descend( );
+		}
+		
+		/**
+		 * Completes the current path by following the first predecessor of every
+		 * value until the start value is reached
+		 */
+		private void descend( ) {
+			T curr = nodes.get( nodes.size( ) - 1 );
+			while( !curr.equals( start ) ) {
+				choices.add( 0 );
+				curr = parents.get( curr ).get( 0 );
+				nodes.add( curr );
+			}
+			ready = true;
+		}
+		
+		/**
+		 * Moves to the next path by picking the next predecessor of the deepest
+		 * value that still has unexplored predecessors
+		 * 
+		 * @return True if there is a next path
+		 */
+		private boolean advance( ) {
+			for( int i = choices.size( ) - 1; i >= 0; i-- ) {
+				final List<T> P = parents.get( nodes.get( i ) );
+				final int c = choices.get( i ) + 1;
+				
+				// trim the path to the value and try its next predecessor
+				nodes.subList( i + 1, nodes.size( ) ).clear( );
+				choices.subList( i, choices.size( ) ).clear( );
+				if( c >= P.size( ) ) continue;
+				
+				choices.add( c );
+				nodes.add( P.get( c ) );
+				descend( );
+				return true;
+			}
+			return false;
+		}
+		
+		@Override
+		public boolean hasNext( ) {
+			if( !ready && !nodes.isEmpty( ) && !advance( ) ) nodes.clear( );
+			return ready;
+		}
 		
-		throw new RuntimeException( "Failed to find shortest path from " + startvalue + "  to " + targetvalue );
+		@Override
+		public List<T> next( ) {
+			if( !hasNext( ) ) throw new NoSuchElementException( );
+			ready = false;
+			
+			final List<T> path = new ArrayList<>( nodes );
+			Collections.reverse( path );
+			return path;
+		}
 	}
 }
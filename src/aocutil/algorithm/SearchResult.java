@@ -0,0 +1,105 @@
+package aocutil.algorithm;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The outcome of a weighted search: the distance to and path towards the goal
+ * state that has been found, together with some statistics of the search
+ * effort
+ *
+ * @author Joris
+ * @param <T> The type of the search states
+ */
+public class SearchResult<T> {
+	/** The goal state that was reached, null if none was found */
+	private final T goal;
+
+	/** The distance to the goal, -1 if no goal was found */
+	private final long distance;
+
+	/** The path from the initial state to the goal, null if no goal was found */
+	private final List<T> path;
+
+	/** The number of states that have been settled (expanded) */
+	private final long settled;
+
+	/** The number of entries that have been pushed onto the heap */
+	private final long pushed;
+
+	/** The number of outdated heap entries that have been skipped */
+	private final long stale;
+
+	/**
+	 * Creates a new search result
+	 *
+	 * @param goal The goal state that was reached, null if none
+	 * @param distance The distance to the goal
+	 * @param path The path from initial state to goal
+	 * @param settled The number of settled states
+	 * @param pushed The number of heap pushes
+	 * @param stale The number of stale heap entries that were skipped
+	 */
+	protected SearchResult( final T goal, final long distance, final List<T> path, final long settled, final long pushed, final long stale ) {
+		this.goal = goal;
+		this.distance = distance;
+		this.path = path;
+		this.settled = settled;
+		this.pushed = pushed;
+		this.stale = stale;
+	}
+
+	/** @return True if a goal state has been reached */
+	public boolean isFound( ) {
+		return path != null;
+	}
+
+	/**
+	 * @return The goal state that has been reached
+	 * @throws NoSuchElementException if no goal state was reached
+	 */
+	public T getGoal( ) {
+		if( !isFound( ) ) throw new NoSuchElementException( "No goal state was reached" );
+		return goal;
+	}
+
+	/**
+	 * @return The total cost of the path from the initial state to the goal
+	 * @throws NoSuchElementException if no goal state was reached
+	 */
+	public long getDistance( ) {
+		if( !isFound( ) ) throw new NoSuchElementException( "No goal state was reached" );
+		return distance;
+	}
+
+	/**
+	 * @return The states on the path from the initial state to the goal, both
+	 *   inclusive
+	 * @throws NoSuchElementException if no goal state was reached
+	 */
+	public List<T> getPath( ) {
+		if( !isFound( ) ) throw new NoSuchElementException( "No goal state was reached" );
+		return path;
+	}
+
+	/** @return The number of states that have been settled during the search */
+	public long getSettled( ) {
+		return settled;
+	}
+
+	/** @return The number of entries pushed onto the heap during the search */
+	public long getPushed( ) {
+		return pushed;
+	}
+
+	/** @return The number of outdated heap entries that were skipped */
+	public long getStale( ) {
+		return stale;
+	}
+
+	/** @return The distance and search statistics */
+	@Override
+	public String toString( ) {
+		return (isFound( ) ? "distance " + distance : "not found") + " (settled: " + settled + ", pushed: " + pushed + ", stale: " + stale + ")";
+	}
+}
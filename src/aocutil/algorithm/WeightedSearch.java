@@ -0,0 +1,270 @@
+package aocutil.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Shortest path search over weighted state spaces, using Dijkstra's algorithm
+ * or A* when a heuristic is supplied. States are generated on the fly by a
+ * successor function, so the state space never needs to be materialised.
+ * <br/><br/>
+ * The open set is a binary heap with lazy deletion: an improved distance for
+ * a state simply pushes a new heap entry and outdated entries are skipped when
+ * they are polled, which avoids the need for a decrease-key operation.
+ *
+ * @author Joris
+ */
+public class WeightedSearch {
+	/**
+	 * Generates the successors of a search state
+	 *
+	 * @param <T> The type of the search states
+	 */
+	@FunctionalInterface
+	public interface Successors<T> {
+		/**
+		 * Generates all successors of the state and passes them on to the
+		 * consumer together with the (non-negative) cost of the step
+		 *
+		 * @param state The state to expand
+		 * @param next The consumer that accepts a successor and its step cost
+		 */
+		void expand( final T state, final ObjLongConsumer<T> next );
+	}
+
+	/**
+	 * Finds the shortest path from the initial state to the nearest goal state
+	 * using Dijkstra's algorithm
+	 *
+	 * @param <T> The type of the search states
+	 * @param initial The initial state
+	 * @param successors The function that generates successors and step costs
+	 * @param goal The predicate that determines whether a state is a goal
+	 * @return The search result
+	 */
+	public static <T> SearchResult<T> dijkstra( final T initial, final Successors<T> successors, final Predicate<T> goal ) {
+		return aStar( initial, successors, goal, s -> 0 );
+	}
+
+	/**
+	 * Finds the shortest path from the initial state to the nearest goal state
+	 * using A*. The heuristic must be admissible, i.e. it may never exceed the
+	 * true remaining cost to a goal. A consistent heuristic settles every state
+	 * at most once, an inconsistent one may cause states to be re-expanded.
+	 *
+	 * @param <T> The type of the search states
+	 * @param initial The initial state
+	 * @param successors The function that generates successors and step costs
+	 * @param goal The predicate that determines whether a state is a goal
+	 * @param heuristic The admissible estimate of the remaining cost to a goal
+	 * @return The search result
+	 * @throws IllegalArgumentException if a negative step cost is generated
+	 */
+	public static <T> SearchResult<T> aStar( final T initial, final Successors<T> successors, final Predicate<T> goal, final ToLongFunction<T> heuristic ) {
+		final Map<T, Node<T>> nodes = new HashMap<>( );
+		final Heap<T> open = new Heap<>( );
+		final long[] stats = new long[ 3 ]; // settled, pushed, stale
+
+		final Node<T> start = new Node<>( initial, 0, null );
+		nodes.put( initial, start );
+		open.push( heuristic.applyAsLong( initial ), start, 0 );
+		stats[1]++;
+
+		while( !open.isEmpty( ) ) {
+			// skip entries that have been superseded by a shorter distance
+			final long g = open.peekCost( );
+			final Node<T> node = open.pop( );
+			if( g > node.cost ) { stats[2]++; continue; }
+
+			stats[0]++;
+			if( goal.test( node.state ) )
+				return new SearchResult<>( node.state, node.cost, node.getPath( ), stats[0], stats[1], stats[2] );
+
+			successors.expand( node.state, (next, step) -> {
+				if( step < 0 ) throw new IllegalArgumentException( "Negative step cost " + step + " from " + node.state + " to " + next );
+
+				final long cost = node.cost + step;
+				Node<T> n = nodes.get( next );
+				if( n == null ) {
+					n = new Node<>( next, cost, node );
+					nodes.put( next, n );
+				} else if( cost < n.cost ) {
+					n.cost = cost;
+					n.parent = node;
+				} else {
+					return;
+				}
+				open.push( cost + heuristic.applyAsLong( next ), n, cost );
+				stats[1]++;
+			} );
+		}
+
+		return new SearchResult<>( null, -1, null, stats[0], stats[1], stats[2] );
+	}
+
+	/**
+	 * Finds the distance from the initial state to the target state using
+	 * Dijkstra's algorithm
+	 *
+	 * @param <T> The type of the search states
+	 * @param initial The initial state
+	 * @param target The target state
+	 * @param successors The function that generates successors and step costs
+	 * @return The shortest distance
+	 * @throws RuntimeException if the target is not reachable
+	 */
+	public static <T> long getDistance( final T initial, final T target, final Successors<T> successors ) {
+		final SearchResult<T> result = dijkstra( initial, successors, target::equals );
+		if( !result.isFound( ) ) throw new RuntimeException( "Failed to find the target " + target + " from " + initial );
+		return result.getDistance( );
+	}
+
+	/**
+	 * A state that has been reached during the search, together with the best
+	 * known distance and the state it was reached from
+	 *
+	 * @param <T> The type of the search states
+	 */
+	private static class Node<T> {
+		/** The search state */
+		private final T state;
+
+		/** The lowest cost found so far */
+		private long cost;
+
+		/** The node on the current shortest path to this node */
+		private Node<T> parent;
+
+		/**
+		 * Creates a new search node
+		 *
+		 * @param state The search state
+		 * @param cost The cost of reaching it
+		 * @param parent The parent node, null for the initial node
+		 */
+		private Node( final T state, final long cost, final Node<T> parent ) {
+			this.state = state;
+			this.cost = cost;
+			this.parent = parent;
+		}
+
+		/** @return The path of states from the initial node to this node */
+		private List<T> getPath( ) {
+			final List<T> path = new ArrayList<>( );
+			for( Node<T> n = this; n != null; n = n.parent ) path.add( n.state );
+			Collections.reverse( path );
+			return path;
+		}
+	}
+
+	/**
+	 * Array-based binary min-heap of nodes. Each entry stores its priority and
+	 * the cost of the node at the time of pushing, so that outdated entries can
+	 * be recognised when they are popped.
+	 *
+	 * @param <T> The type of the search states
+	 */
+	private static class Heap<T> {
+		/** The priority of every entry */
+		private long[] prio = new long[ 64 ];
+
+		/** The node cost at the moment the entry was pushed */
+		private long[] costs = new long[ 64 ];
+
+		/** The nodes */
+		private Object[] items = new Object[ 64 ];
+
+		/** The number of entries in the heap */
+		private int size = 0;
+
+		/** @return True if the heap contains no entries */
+		private boolean isEmpty( ) {
+			return size == 0;
+		}
+
+		/**
+		 * Pushes a new entry onto the heap
+		 *
+		 * @param priority The priority of the entry, lowest first
+		 * @param node The node
+		 * @param cost The current cost of the node
+		 */
+		private void push( final long priority, final Node<T> node, final long cost ) {
+			if( size == prio.length ) {
+				final int len = size << 1;
+				prio = Arrays.copyOf( prio, len );
+				costs = Arrays.copyOf( costs, len );
+				items = Arrays.copyOf( items, len );
+			}
+
+			// sift up
+			int i = size++;
+			while( i > 0 ) {
+				final int p = (i - 1) >>> 1;
+				if( prio[p] <= priority ) break;
+				move( p, i );
+				i = p;
+			}
+			prio[i] = priority;
+			costs[i] = cost;
+			items[i] = node;
+		}
+
+		/** @return The cost stored with the head entry */
+		private long peekCost( ) {
+			return costs[0];
+		}
+
+		/**
+		 * Removes the head entry from the heap
+		 *
+		 * @return The node of the entry with the lowest priority
+		 */
+		@SuppressWarnings( "unchecked" )
+		private Node<T> pop( ) {
+			final Node<T> head = (Node<T>)items[0];
+
+			// move the last entry to the top and sift it down
+			size--;
+			final long p = prio[size];
+			final long c = costs[size];
+			final Object o = items[size];
+			items[size] = null;
+
+			int i = 0;
+			while( true ) {
+				int child = (i << 1) + 1;
+				if( child >= size ) break;
+				if( child + 1 < size && prio[child + 1] < prio[child] ) child++;
+				if( p <= prio[child] ) break;
+				move( child, i );
+				i = child;
+			}
+			if( size > 0 ) {
+				prio[i] = p;
+				costs[i] = c;
+				items[i] = o;
+			}
+			return head;
+		}
+
+		/**
+		 * Moves an entry to another position in the heap arrays
+		 *
+		 * @param from The index of the entry
+		 * @param to The index to move it to
+		 */
+		private void move( final int from, final int to ) {
+			prio[to] = prio[from];
+			costs[to] = costs[from];
+			items[to] = items[from];
+		}
+	}
+}
@@ -1,13 +1,24 @@
 package aocutil.cache;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import javax.management.ObjectName;
 
 /**
  * Simple caching implementation that supports a hash-based mapping of key and
  * value pairs and offers pruning mechanisms to keep the cache size manageable
+ * <br/><br/>
+ * The entries are kept in eviction order at all times, so that pruning only
+ * has to remove entries from the front of that order. For the Oldest strategy
+ * the entries are kept in a list ordered by last access, the hit-based
+ * strategies group entries into buckets of equal hit count.
+ * <br/><br/>
+ * By default the size of the cache is bounded by its number of entries. A
+ * weighted cache, created through {@link #weighted}, instead estimates the
+ * weight of every value and bounds the total weight of all values.
  * 
  * @author Joris
  *
@@ -15,11 +26,17 @@ import java.util.Map;
  * @param <V> The data type of the value
  */
 public class Cache<K, V> {
-	/** The max cache size in number of entries */
-	protected final int maxsize;
+	/** The max cache size in number of entries, or in total weight if a weigher is used */
+	protected final long maxsize;
 	
 	/** The max size after pruning */
-	protected final int prunesize;
+	protected final long prunesize;
+	
+	/** The function that estimates the weight of a value, null to count entries */
+	protected final ToLongFunction<? super V> weigher;
+	
+	/** The current total weight of all entries, equal to the entry count if no weigher is used */
+	protected long weight;
 	
 	/** Strategies to prune the cache */
 	public enum PruneStrategy {
@@ -32,9 +49,39 @@ public class Cache<K, V> {
 	/** The actual cache entries */
 	protected Map<K, CacheEntry> entries;
 	
+	/** The order in which entries are evicted */
+	private final EvictionOrder order;
+	
 	/** True to enable logging of cache status messages */
 	protected boolean verbose;
 	
+	/** The number of successful lookups */
+	protected long hits;
+	
+	/** The number of failed lookups */
+	protected long misses;
+	
+	/** The number of entries evicted by pruning */
+	protected long evictions;
+	
+	/** The number of times the cache was pruned */
+	protected long prunes;
+	
+	/** The total time spent pruning, in nanoseconds */
+	protected long pruneTime;
+	
+	/** The number of values computed by a loader */
+	protected long loads;
+	
+	/** The total time spent in loaders, in nanoseconds */
+	protected long loadTime;
+	
+	/** Logical clock that advances on every cache hit, used to record recency */
+	protected long clock;
+	
+	/** The optional second tier that holds pruned entries, null if not used */
+	protected DiskStore<K, V> secondTier;
+	
 	/**
 	 * Creates a new cache with default size of 1M entries, pruning factor 0.3
 	 * and pruning strategy 'oldest'
@@ -62,13 +109,51 @@ public class Cache<K, V> {
 	 *   is hit
 	 */
 	public Cache( final int maxsize, final double prunefactor, final PruneStrategy pruneStrategy ) {
-		this.entries = new HashMap<>( maxsize );
+		this( maxsize, prunefactor, pruneStrategy, null );
+	}
+	
+	/**
+	 * Creates a new cache that is either bounded by entry count or by total
+	 * weight
+	 * 
+	 * @param maxsize The maximum number of entries or total weight
+	 * @param prunefactor The factor to keep after pruning
+	 * @param pruneStrategy The prune strategy to prune entries if the size limit
+	 *   is hit
+	 * @param weigher The function that estimates the weight of a value, null to
+	 *   bound the cache by its number of entries
+	 */
+	protected Cache( final long maxsize, final double prunefactor, final PruneStrategy pruneStrategy, final ToLongFunction<? super V> weigher ) {
+		this.entries = weigher == null ? new HashMap<>( (int)Math.min( maxsize, 1 << 30 ) ) : new HashMap<>( );
 		this.maxsize = maxsize;
-		this.prunesize = (int)((double)maxsize * prunefactor);
+		this.prunesize = (long)((double)maxsize * prunefactor);
+		this.weigher = weigher;
+		this.weight = 0;
 		this.pruning = pruneStrategy;
+		this.order = pruneStrategy == PruneStrategy.Oldest ? new RecencyOrder( ) : new FrequencyOrder( pruneStrategy == PruneStrategy.LeastHitsRecently );
 		this.verbose = false;
 	}
 	
+	/**
+	 * Creates a new cache that bounds the total weight of its values instead of
+	 * the number of entries. The weigher is evaluated once for every value that
+	 * is stored, e.g. to estimate its memory footprint in bytes.
+	 * 
+	 * @param <K> The data type of the key
+	 * @param <V> The data type of the value
+	 * @param maxweight The maximum total weight of all values
+	 * @param prunefactor The factor of the weight to keep after pruning
+	 * @param pruneStrategy The prune strategy to prune entries if the weight
+	 *   limit is hit
+	 * @param weigher The function that estimates the (non-negative) weight of a
+	 *   value
+	 * @return The new cache
+	 */
+	public static <K, V> Cache<K, V> weighted( final long maxweight, final double prunefactor, final PruneStrategy pruneStrategy, final ToLongFunction<? super V> weigher ) {
+		if( weigher == null ) throw new IllegalArgumentException( "A weighted cache requires a weigher" );
+		return new Cache<>( maxweight, prunefactor, pruneStrategy, weigher );
+	}
+	
 	/**
 	 * Enables/disables the cache log messages
 	 * 
@@ -79,37 +164,152 @@ public class Cache<K, V> {
 	}
 	
 	/**
-	 * Checks if a key is present in the cache
+	 * Sets a second tier store for the cache. Entries that are pruned from the
+	 * cache are written to this store and lookups of keys that are not in the
+	 * cache fall through to it, moving the entry back into the cache if found.
+	 * 
+	 * @param store The store to use as second tier, null to disable it
+	 */
+	public void setSecondTier( final DiskStore<K, V> store ) {
+		this.secondTier = store;
+	}
+	
+	/**
+	 * Checks if a key is present in the cache or its second tier
 	 * 
 	 * @param key The key to search
 	 * @return True iff an entry <k,v> exists for which k.equals( key )
 	 */
 	public boolean contains( final K key ) {
-		return entries.containsKey( key );
+		return entries.containsKey( key ) || (secondTier != null && secondTier.contains( key ));
 	}
 
 	/**
 	 * Retrieves the value of the cached entry
 	 * 
 	 * @param key The key to search
-	 * @return The value of the key
+	 * @return The value of the key, null if the key is not in the cache
 	 */
 	public V get( final K key ) {
 		final CacheEntry entry = entries.get( key );
+		if( entry == null ) return getFromSecondTier( key );
+		hits++;
 		entry.hit( );
+		order.access( entry );
 		return entry.value;
 	}
 	
+	/**
+	 * Looks up a key that is not in the cache in the second tier, if any, and
+	 * moves it back into the cache when found
+	 * 
+	 * @param key The key to search
+	 * @return The value of the key, null if it is also not in the second tier
+	 */
+	private V getFromSecondTier( final K key ) {
+		final V value = secondTier != null ? secondTier.get( key ) : null;
+		if( value == null ) {
+			misses++;
+			return null;
+		}
+		hits++;
+		set( key, value );
+		return value;
+	}
+	
 	/**
 	 * Adds or overwrites an entry in the cache. Will call the prune function if
-	 * the size limit is exceeded
+	 * the size limit is exceeded. In a weighted cache, a value that weighs more
+	 * than the maximum weight is not stored at all and any older value of the
+	 * key is also removed from the second tier.
 	 * 
 	 * @param key The key to store the value at
 	 * @param value The value to store in the cache
+	 * @throws IllegalArgumentException if the weigher returns a negative weight
 	 */
 	public void set( final K key, final V value ) {
-		if( entries.size( ) + 1 >= maxsize ) prune( );
-		entries.put( key, new CacheEntry( key, value ) );
+		final long w = weigher == null ? 1 : weigher.applyAsLong( value );
+		if( w < 0 ) throw new IllegalArgumentException( "Negative weight " + w + " for value " + value );
+		
+		// remove the current entry first so that it does not count towards the
+		// weight that triggers pruning
+		final CacheEntry old = entries.remove( key );
+		if( old != null ) {
+			order.remove( old );
+			weight -= old.weight;
+		}
+		if( w > maxsize ) {
+			if( secondTier != null ) secondTier.remove( key );
+			return;
+		}
+		
+		if( weight + w >= maxsize ) prune( );
+		final CacheEntry entry = new CacheEntry( key, value, w );
+		entries.put( key, entry );
+		order.add( entry );
+		weight += w;
+	}
+	
+	/**
+	 * Retrieves the value of the key, computes and stores it if it is not yet
+	 * in the cache. The time spent in the loader is recorded in the cache
+	 * statistics. The loader may use the cache itself, e.g. for recursive
+	 * memoisation, but then its load time includes that of the nested loads.
+	 * 
+	 * @param key The key to look up
+	 * @param loader The function that computes the value of a missing key
+	 * @return The cached or computed value
+	 */
+	public V computeIfAbsent( final K key, final Function<? super K, ? extends V> loader ) {
+		final V cached = get( key );
+		if( cached != null ) return cached;
+		
+		final long start = System.nanoTime( );
+		final V value = loader.apply( key );
+		loadTime += System.nanoTime( ) - start;
+		loads++;
+		
+		if( value != null ) set( key, value );
+		return value;
+	}
+	
+	/** @return The number of entries in the cache */
+	public int size( ) {
+		return entries.size( );
+	}
+	
+	/** @return The total weight of all entries, equal to the size if no weigher is used */
+	public long getWeight( ) {
+		return weight;
+	}
+	
+	/** @return A snapshot of the current cache statistics */
+	public CacheStats getStats( ) {
+		return new CacheStats( entries.size( ), weight, maxsize, hits, misses, evictions, prunes, pruneTime, loads, loadTime );
+	}
+	
+	/**
+	 * Resets all cache statistics to zero
+	 */
+	public void resetStats( ) {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		prunes = 0;
+		pruneTime = 0;
+		loads = 0;
+		loadTime = 0;
+	}
+	
+	/**
+	 * Exposes the statistics of this cache as MBean on the platform MBean server
+	 * 
+	 * @param name The name to register the cache under
+	 * @return The object name of the registered MBean
+	 * @throws RuntimeException if the registration fails
+	 */
+	public ObjectName registerMBean( final String name ) {
+		return CacheMonitor.register( name, this::getStats );
 	}
 	
 	/**
@@ -117,32 +317,23 @@ public class Cache<K, V> {
 	 * configured number of entries
 	 */
 	private void prune( ) {
-		log( "Pruning cache" );
-		final List<CacheEntry> E = new ArrayList<>( entries.values( ) );
-		
-		// apply chosen pruning strategy
-		switch( pruning ) {
-			// sort entries from most to least cache hits
-			case LeastHitsRecently:
-			case LeastHits:
-				E.sort( (x,y) -> y.hits - x.hits );
-				break;
-
-			// sort entries from most recent to oldest cache hit
-			case Oldest:
-				E.sort( (x,y) -> Long.compare( y.lasthit, x.lasthit ) );
-				break;
-				
-			default: throw new RuntimeException( "Strategy not implemented: " + pruning );
-		}
-
-		// prune every entry after the specified pruning size
-		while( E.size( ) > prunesize ) {
-			entries.remove( E.remove( E.size( ) - 1 ).key );
+		final long start = System.nanoTime( );
+		final int size = entries.size( );
+		
+		// evict entries from the front of the eviction order until the pruning
+		// size is reached
+		while( weight > prunesize ) {
+			final CacheEntry e = order.evict( );
+			entries.remove( e.key );
+			weight -= e.weight;
+			if( secondTier != null ) secondTier.put( e.key, e.value );
 		}
+		order.pruned( );
 		
-		// and reset hit count?
-		if( pruning == PruneStrategy.LeastHitsRecently ) entries.values( ).stream( ).forEach( v -> v.reset( ) );
+		evictions += size - entries.size( );
+		prunes++;
+		pruneTime += System.nanoTime( ) - start;
+		if( verbose ) log( "Pruned cache: " + getStats( ) );
 	}
 	
 	/**
@@ -165,35 +356,47 @@ public class Cache<K, V> {
 		/** The stored value */
 		protected final V value;
 		
+		/** The weight of the value, 1 if the cache counts entries */
+		protected final long weight;
+		
 		/** The number of cache hits (successful lookups) */
 		protected int hits;
 		
-		/** The last cache hit */
+		/** The logical time of the last cache hit, 0 if it has not been hit */
 		protected long lasthit;
 		
+		/** The previous entry in the eviction order list */
+		protected CacheEntry prev;
+		
+		/** The next entry in the eviction order list */
+		protected CacheEntry next;
+		
+		/** The hit count bucket the entry is in, if a hit-based strategy is used */
+		protected Bucket bucket;
+		
 		/**
 		 * Creates a new cache entry
 		 * 
 		 * @param key The key to store the entry at
 		 * @param value The value to hold
+		 * @param weight The weight of the value
 		 */
-		public CacheEntry( final K key, final V value ) {
+		public CacheEntry( final K key, final V value, final long weight ) {
 			this.key = key;
 			this.value = value;
+			this.weight = weight;
 			this.hits = 0;
 			this.lasthit = 0;
 		}
 		
-		/** Marks a hit of this cache entry */
+		/**
+		 * Marks a hit of this cache entry. Recency is recorded with the logical
+		 * clock of the cache rather than the wall clock, which is cheaper and
+		 * distinguishes every hit.
+		 */
 		protected void hit( ) {
 			hits++;
-			lasthit = System.currentTimeMillis( );
-		}
-		
-		/** Resets the cache hit statistics */
-		protected void reset( ) {
-			hits = 0;
-			lasthit = 0;
+			lasthit = ++clock;
 		}
 		
 		/** @return The string description of the cache entry */
@@ -202,5 +405,254 @@ public class Cache<K, V> {
 			return key + ": " + value + " (hits: " + hits + ", lasthit: " + lasthit + ")";
 		}
 	}
-
+	
+	/**
+	 * Intrusive doubly linked list of cache entries
+	 */
+	private class EntryList {
+		/** The first entry in the list */
+		protected CacheEntry first;
+		
+		/** The last entry in the list */
+		protected CacheEntry last;
+		
+		/** @return True if the list contains no entries */
+		protected boolean isEmpty( ) {
+			return first == null;
+		}
+		
+		/**
+		 * Adds an entry to the end of the list
+		 * 
+		 * @param entry The entry to add
+		 */
+		protected void append( final CacheEntry entry ) {
+			entry.prev = last;
+			entry.next = null;
+			if( last == null ) first = entry; else last.next = entry;
+			last = entry;
+		}
+		
+		/**
+		 * Removes an entry from the list
+		 * 
+		 * @param entry The entry to remove
+		 */
+		protected void unlink( final CacheEntry entry ) {
+			if( entry.prev == null ) first = entry.next; else entry.prev.next = entry.next;
+			if( entry.next == null ) last = entry.prev; else entry.next.prev = entry.prev;
+			entry.prev = null;
+			entry.next = null;
+		}
+		
+		/**
+		 * Moves all entries of another list to the end of this list, leaving the
+		 * other list empty
+		 * 
+		 * @param other The list to take the entries from
+		 */
+		protected void appendAll( final EntryList other ) {
+			if( other.first == null ) return;
+			if( last == null ) first = other.first;
+			else {
+				last.next = other.first;
+				other.first.prev = last;
+			}
+			last = other.last;
+			other.first = null;
+			other.last = null;
+		}
+	}
+	
+	/**
+	 * Keeps track of the order in which cache entries are to be evicted
+	 */
+	private abstract class EvictionOrder {
+		/**
+		 * Adds a new entry to the order
+		 * 
+		 * @param entry The entry
+		 */
+		protected abstract void add( final CacheEntry entry );
+		
+		/**
+		 * Updates the order after a hit of the entry
+		 * 
+		 * @param entry The entry that was hit
+		 */
+		protected abstract void access( final CacheEntry entry );
+		
+		/**
+		 * Removes an entry from the order
+		 * 
+		 * @param entry The entry to remove
+		 */
+		protected abstract void remove( final CacheEntry entry );
+		
+		/**
+		 * Removes the entry that is first in line for eviction
+		 * 
+		 * @return The evicted entry
+		 */
+		protected abstract CacheEntry evict( );
+		
+		/** Called after every prune of the cache */
+		protected void pruned( ) { }
+	}
+	
+	/**
+	 * Least recently used order, maintained as a list of entries ordered by
+	 * their last access
+	 */
+	private class RecencyOrder extends EvictionOrder {
+		/** The entries, least recently used first */
+		private final EntryList list = new EntryList( );
+		
+		@Override
+		protected void add( final CacheEntry entry ) {
+			list.append( entry );
+		}
+		
+		@Override
+		protected void access( final CacheEntry entry ) {
+			if( entry == list.last ) return;
+			list.unlink( entry );
+			list.append( entry );
+		}
+		
+		@Override
+		protected void remove( final CacheEntry entry ) {
+			list.unlink( entry );
+		}
+		
+		@Override
+		protected CacheEntry evict( ) {
+			final CacheEntry entry = list.first;
+			list.unlink( entry );
+			return entry;
+		}
+	}
+	
+	/**
+	 * List of entries that have the same hit count
+	 */
+	private class Bucket extends EntryList {
+		/** The hit count of the entries in this bucket */
+		protected final int hits;
+		
+		/** The bucket with the next lower hit count */
+		protected Bucket prevBucket;
+		
+		/** The bucket with the next higher hit count */
+		protected Bucket nextBucket;
+		
+		/**
+		 * Creates a new, empty bucket
+		 * 
+		 * @param hits The hit count of its entries
+		 */
+		protected Bucket( final int hits ) {
+			this.hits = hits;
+		}
+	}
+	
+	/**
+	 * Least frequently used order, maintained as a list of buckets ordered by
+	 * hit count. Within a bucket, entries are ordered by the moment they
+	 * entered the bucket.
+	 */
+	private class FrequencyOrder extends EvictionOrder {
+		/** The bucket with the lowest hit count, null if there are no entries */
+		private Bucket lowest;
+		
+		/** True to reset the hit counts after every prune */
+		private final boolean resetOnPrune;
+		
+		/**
+		 * Creates a new frequency order
+		 * 
+		 * @param resetOnPrune True to reset the hit counts after pruning
+		 */
+		protected FrequencyOrder( final boolean resetOnPrune ) {
+			this.resetOnPrune = resetOnPrune;
+		}
+		
+		@Override
+		protected void add( final CacheEntry entry ) {
+			if( lowest == null || lowest.hits != 0 ) lowest = insertBucket( 0, null, lowest );
+			lowest.append( entry );
+			entry.bucket = lowest;
+		}
+		
+		@Override
+		protected void access( final CacheEntry entry ) {
+			final Bucket b = entry.bucket;
+			Bucket nb = b.nextBucket;
+			if( nb == null || nb.hits != b.hits + 1 ) nb = insertBucket( b.hits + 1, b, nb );
+			
+			b.unlink( entry );
+			if( b.isEmpty( ) ) removeBucket( b );
+			nb.append( entry );
+			entry.bucket = nb;
+		}
+		
+		@Override
+		protected void remove( final CacheEntry entry ) {
+			final Bucket b = entry.bucket;
+			b.unlink( entry );
+			if( b.isEmpty( ) ) removeBucket( b );
+			entry.bucket = null;
+		}
+		
+		@Override
+		protected CacheEntry evict( ) {
+			final CacheEntry entry = lowest.first;
+			remove( entry );
+			return entry;
+		}
+		
+		/**
+		 * Resets the hit counts if required, by merging all buckets into a single
+		 * bucket with hit count 0. The merged bucket keeps the entries in order of
+		 * their previous hit count.
+		 */
+		@Override
+		protected void pruned( ) {
+			if( !resetOnPrune || lowest == null ) return;
+			
+			final Bucket merged = new Bucket( 0 );
+			for( Bucket b = lowest; b != null; b = b.nextBucket ) {
+				for( CacheEntry e = b.first; e != null; e = e.next ) e.bucket = merged;
+				merged.appendAll( b );
+			}
+			lowest = merged;
+		}
+		
+		/**
+		 * Creates a new bucket and links it between two existing buckets
+		 * 
+		 * @param hits The hit count of the new bucket
+		 * @param prev The bucket before it, null if it becomes the lowest
+		 * @param next The bucket after it, may be null
+		 * @return The new bucket
+		 */
+		private Bucket insertBucket( final int hits, final Bucket prev, final Bucket next ) {
+			final Bucket b = new Bucket( hits );
+			b.prevBucket = prev;
+			b.nextBucket = next;
+			if( prev == null ) lowest = b; else prev.nextBucket = b;
+			if( next != null ) next.prevBucket = b;
+			return b;
+		}
+		
+		/**
+		 * Unlinks an empty bucket from the list of buckets
+		 * 
+		 * @param b The bucket to remove
+		 */
+		private void removeBucket( final Bucket b ) {
+			if( b.prevBucket == null ) lowest = b.nextBucket; else b.prevBucket.nextBucket = b.nextBucket;
+			if( b.nextBucket != null ) b.nextBucket.prevBucket = b.prevBucket;
+		}
+	}
 }
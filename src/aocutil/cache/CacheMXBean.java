@@ -0,0 +1,41 @@
+package aocutil.cache;
+
+/**
+ * Management interface that exposes the statistics of a cache through JMX
+ *
+ * @author Joris
+ */
+public interface CacheMXBean {
+	/** @return The number of entries in the cache */
+	long getSize( );
+
+	/** @return The total weight of all entries in the cache */
+	long getWeight( );
+
+	/** @return The maximum number of entries in the cache, or the maximum weight */
+	long getMaxSize( );
+
+	/** @return The number of successful lookups */
+	long getHits( );
+
+	/** @return The number of failed lookups */
+	long getMisses( );
+
+	/** @return The fraction of lookups that was successful */
+	double getHitRatio( );
+
+	/** @return The number of entries evicted by pruning */
+	long getEvictions( );
+
+	/** @return The number of times the cache was pruned */
+	long getPruneCount( );
+
+	/** @return The total time spent pruning, in milliseconds */
+	long getTotalPruneTime( );
+
+	/** @return The number of values computed by a loader */
+	long getLoadCount( );
+
+	/** @return The total time spent in loaders, in milliseconds */
+	long getTotalLoadTime( );
+}
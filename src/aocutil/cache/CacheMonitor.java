@@ -0,0 +1,118 @@
+package aocutil.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the statistics of a cache as MBean on the platform MBean server, so
+ * that they can be inspected with any JMX client while a job is running
+ *
+ * @author Joris
+ */
+public class CacheMonitor implements CacheMXBean {
+	/** The supplier of the statistics snapshots */
+	private final Supplier<CacheStats> stats;
+
+	/**
+	 * Creates a new monitor
+	 *
+	 * @param stats The function that supplies the current cache statistics
+	 */
+	public CacheMonitor( final Supplier<CacheStats> stats ) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Registers a cache monitor on the platform MBean server under the name
+	 * aocutil.cache:type=Cache,name=&lt;name&gt;
+	 *
+	 * @param name The name of the cache
+	 * @param stats The function that supplies the current cache statistics
+	 * @return The object name that the monitor has been registered under
+	 * @throws RuntimeException if the registration fails
+	 */
+	public static ObjectName register( final String name, final Supplier<CacheStats> stats ) {
+		try {
+			final ObjectName oname = new ObjectName( "aocutil.cache:type=Cache,name=" + ObjectName.quote( name ) );
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer( );
+			if( server.isRegistered( oname ) ) server.unregisterMBean( oname );
+			server.registerMBean( new CacheMonitor( stats ), oname );
+			return oname;
+		} catch( JMException e ) {
+			throw new RuntimeException( "Failed to register cache MBean " + name, e );
+		}
+	}
+
+	/**
+	 * Removes a previously registered monitor from the platform MBean server
+	 *
+	 * @param oname The object name of the monitor
+	 * @throws RuntimeException if the monitor could not be unregistered
+	 */
+	public static void unregister( final ObjectName oname ) {
+		try {
+			ManagementFactory.getPlatformMBeanServer( ).unregisterMBean( oname );
+		} catch( JMException e ) {
+			throw new RuntimeException( "Failed to unregister cache MBean " + oname, e );
+		}
+	}
+
+	@Override
+	public long getSize( ) {
+		return stats.get( ).size;
+	}
+
+	@Override
+	public long getWeight( ) {
+		return stats.get( ).weight;
+	}
+
+	@Override
+	public long getMaxSize( ) {
+		return stats.get( ).maxsize;
+	}
+
+	@Override
+	public long getHits( ) {
+		return stats.get( ).hits;
+	}
+
+	@Override
+	public long getMisses( ) {
+		return stats.get( ).misses;
+	}
+
+	@Override
+	public double getHitRatio( ) {
+		return stats.get( ).getHitRatio( );
+	}
+
+	@Override
+	public long getEvictions( ) {
+		return stats.get( ).evictions;
+	}
+
+	@Override
+	public long getPruneCount( ) {
+		return stats.get( ).prunes;
+	}
+
+	@Override
+	public long getTotalPruneTime( ) {
+		return stats.get( ).pruneTime / 1000000;
+	}
+
+	@Override
+	public long getLoadCount( ) {
+		return stats.get( ).loads;
+	}
+
+	@Override
+	public long getTotalLoadTime( ) {
+		return stats.get( ).loadTime / 1000000;
+	}
+}
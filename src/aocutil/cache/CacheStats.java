@@ -0,0 +1,89 @@
+package aocutil.cache;
+
+/**
+ * Immutable snapshot of the usage statistics of a cache
+ *
+ * @author Joris
+ */
+public class CacheStats {
+	/** The number of entries in the cache */
+	public final long size;
+
+	/** The total weight of the entries, equal to the size for unweighted caches */
+	public final long weight;
+
+	/** The maximum number of entries in the cache, or the maximum weight for weighted caches */
+	public final long maxsize;
+
+	/** The number of successful lookups */
+	public final long hits;
+
+	/** The number of failed lookups */
+	public final long misses;
+
+	/** The number of entries evicted by pruning */
+	public final long evictions;
+
+	/** The number of times the cache was pruned */
+	public final long prunes;
+
+	/** The total time spent pruning, in nanoseconds */
+	public final long pruneTime;
+
+	/** The number of values computed by a loader */
+	public final long loads;
+
+	/** The total time spent in loaders, in nanoseconds */
+	public final long loadTime;
+
+	/**
+	 * Creates a new statistics snapshot
+	 *
+	 * @param size The number of entries
+	 * @param weight The total weight of the entries
+	 * @param maxsize The maximum number of entries or weight
+	 * @param hits The number of successful lookups
+	 * @param misses The number of failed lookups
+	 * @param evictions The number of evicted entries
+	 * @param prunes The number of prunes
+	 * @param pruneTime The total prune time in nanoseconds
+	 * @param loads The number of loaded values
+	 * @param loadTime The total load time in nanoseconds
+	 */
+	public CacheStats( final long size, final long weight, final long maxsize, final long hits, final long misses, final long evictions, final long prunes, final long pruneTime, final long loads, final long loadTime ) {
+		this.size = size;
+		this.weight = weight;
+		this.maxsize = maxsize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.prunes = prunes;
+		this.pruneTime = pruneTime;
+		this.loads = loads;
+		this.loadTime = loadTime;
+	}
+
+	/** @return The total number of lookups */
+	public long getRequests( ) {
+		return hits + misses;
+	}
+
+	/** @return The fraction of lookups that was successful, 1 if there were no lookups */
+	public double getHitRatio( ) {
+		final long requests = getRequests( );
+		return requests == 0 ? 1.0 : (double)hits / requests;
+	}
+
+	/** @return The average time per load in nanoseconds, 0 if there were no loads */
+	public double getAverageLoadTime( ) {
+		return loads == 0 ? 0 : (double)loadTime / loads;
+	}
+
+	/** @return The statistics as a single line */
+	@Override
+	public String toString( ) {
+		return "size: " + size + (weight != size ? ", weight: " + weight : "") + " (max " + maxsize + "), hits: " + hits + ", misses: " + misses + String.format( " (%.2f%%)", 100.0 * getHitRatio( ) )
+				+ ", evictions: " + evictions + ", prunes: " + prunes + " (" + pruneTime / 1000000 + "ms)"
+				+ ", loads: " + loads + " (" + loadTime / 1000000 + "ms)";
+	}
+}
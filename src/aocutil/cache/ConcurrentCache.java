@@ -0,0 +1,418 @@
+package aocutil.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.management.ObjectName;
+
+import aocutil.cache.Cache.PruneStrategy;
+
+/**
+ * Thread-safe variant of the {@link Cache} that can be shared between worker
+ * threads, e.g. to memoise results in a parallel recursive search.
+ * <br/><br/>
+ * Entries are stored in a ConcurrentHashMap. Hit counts are incremented
+ * atomically per entry and every access advances a shared logical clock, so
+ * lookups never take a lock. Pruning is approximate:
+ * a sample of the entries is used to determine the score below which entries
+ * are evicted, which avoids sorting all entries. Only a single thread prunes
+ * at a time, the others continue to use the cache while it does.
+ *
+ * @author Joris
+ *
+ * @param <K> The data type of the key
+ * @param <V> The data type of the value
+ */
+public class ConcurrentCache<K, V> {
+	/** The number of entries sampled to determine the eviction threshold */
+	private static final int SAMPLE_SIZE = 256;
+
+	/** The max cache size in number of entries */
+	protected final int maxsize;
+
+	/** The max size after pruning */
+	protected final int prunesize;
+
+	/** The configured prune strategy */
+	protected final PruneStrategy pruning;
+
+	/** The actual cache entries */
+	protected final ConcurrentHashMap<K, CacheEntry<V>> entries;
+
+	/** Logical clock that advances on every insertion and access, used for recency */
+	private final AtomicLong clock;
+
+	/** Flag that is set while a thread is pruning the cache */
+	private final AtomicBoolean pruneActive;
+
+	/** The number of entries of which the value is still being computed */
+	private final AtomicInteger pending;
+
+	/** The number of successful lookups */
+	protected final LongAdder hits;
+
+	/** The number of failed lookups */
+	protected final LongAdder misses;
+
+	/** The number of entries evicted by pruning */
+	protected final LongAdder evictions;
+
+	/** The number of times the cache was pruned */
+	protected final LongAdder prunes;
+
+	/** The total time spent pruning, in nanoseconds */
+	protected final LongAdder pruneTime;
+
+	/** The number of values computed by a loader */
+	protected final LongAdder loads;
+
+	/** The total time spent in loaders, in nanoseconds */
+	protected final LongAdder loadTime;
+
+	/**
+	 * Creates a new cache with default size of 1M entries, pruning factor 0.3
+	 * and pruning strategy 'oldest'
+	 */
+	public ConcurrentCache( ) {
+		this( 1000000, 0.3, PruneStrategy.Oldest );
+	}
+
+	/**
+	 * Creates a new cache with pruning strategy 'oldest'
+	 *
+	 * @param maxsize The maximum cache entries
+	 * @param prunefactor The factor to keep after pruning
+	 */
+	public ConcurrentCache( final int maxsize, final double prunefactor ) {
+		this( maxsize, prunefactor, PruneStrategy.Oldest );
+	}
+
+	/**
+	 * Creates a new cache
+	 *
+	 * @param maxsize The maximum cache entries
+	 * @param prunefactor The factor to keep after pruning
+	 * @param pruneStrategy The prune strategy to prune entries if the size limit
+	 *   is hit
+	 */
+	public ConcurrentCache( final int maxsize, final double prunefactor, final PruneStrategy pruneStrategy ) {
+		this.entries = new ConcurrentHashMap<>( );
+		this.maxsize = maxsize;
+		this.prunesize = (int)((double)maxsize * prunefactor);
+		this.pruning = pruneStrategy;
+		this.clock = new AtomicLong( );
+		this.pruneActive = new AtomicBoolean( false );
+		this.pending = new AtomicInteger( );
+		this.hits = new LongAdder( );
+		this.misses = new LongAdder( );
+		this.evictions = new LongAdder( );
+		this.prunes = new LongAdder( );
+		this.pruneTime = new LongAdder( );
+		this.loads = new LongAdder( );
+		this.loadTime = new LongAdder( );
+	}
+
+	/**
+	 * Checks if a key is present in the cache
+	 *
+	 * @param key The key to search
+	 * @return True iff an entry <k,v> exists for which k.equals( key )
+	 */
+	public boolean contains( final K key ) {
+		return entries.containsKey( key );
+	}
+
+	/**
+	 * Retrieves the value of the cached entry. If the value is still being
+	 * computed by another thread, this waits for the computation to complete.
+	 *
+	 * @param key The key to search
+	 * @return The value of the key, null if the key is not in the cache
+	 * @throws IllegalStateException if the value is requested by the loader
+	 *   that is computing it
+	 */
+	public V get( final K key ) {
+		final CacheEntry<V> entry = entries.get( key );
+		if( entry == null ) {
+			misses.increment( );
+			return null;
+		}
+
+		if( entry.loader == Thread.currentThread( ) )
+			throw new IllegalStateException( "Recursive computation of key " + key );
+
+		hits.increment( );
+		entry.hit( clock.incrementAndGet( ) );
+		return entry.value.join( );
+	}
+
+	/**
+	 * Adds or overwrites an entry in the cache. Will prune the cache if the
+	 * size limit is exceeded
+	 *
+	 * @param key The key to store the value at
+	 * @param value The value to store in the cache
+	 */
+	public void set( final K key, final V value ) {
+		entries.put( key, new CacheEntry<>( CompletableFuture.completedFuture( value ), clock.incrementAndGet( ) ) );
+		checkSize( );
+	}
+
+	/**
+	 * Retrieves the value of the key, computes and stores it if it is not yet
+	 * present. The loader is invoked at most once per key, concurrent callers
+	 * for the same key wait for its result instead of computing it again. The
+	 * loader is run outside of any lock and may itself use the cache for other
+	 * keys, which makes this suitable for recursive memoisation.
+	 *
+	 * @param key The key to look up
+	 * @param loader The function that computes the value of a missing key
+	 * @return The cached or computed value
+	 * @throws IllegalStateException if the loader recursively requests the key
+	 *   that it is computing
+	 * @throws RuntimeException if the loader throws an exception, the key is
+	 *   not cached in that case
+	 */
+	public V computeIfAbsent( final K key, final Function<? super K, ? extends V> loader ) {
+		CacheEntry<V> entry = entries.get( key );
+		if( entry == null ) {
+			final CacheEntry<V> created = new CacheEntry<>( new CompletableFuture<>( ), clock.incrementAndGet( ) );
+			created.loader = Thread.currentThread( );
+			entry = entries.putIfAbsent( key, created );
+
+			if( entry == null ) {
+				// this thread won the race, compute the value
+				misses.increment( );
+				pending.incrementAndGet( );
+				final long start = System.nanoTime( );
+				try {
+					created.value.complete( loader.apply( key ) );
+				} catch( RuntimeException | Error e ) {
+					entries.remove( key, created );
+					created.value.completeExceptionally( e );
+					throw e;
+				} finally {
+					pending.decrementAndGet( );
+					created.loader = null;
+					loadTime.add( System.nanoTime( ) - start );
+					loads.increment( );
+				}
+				checkSize( );
+				return created.value.join( );
+			}
+		}
+
+		if( entry.loader == Thread.currentThread( ) )
+			throw new IllegalStateException( "Recursive computation of key " + key );
+
+		hits.increment( );
+		entry.hit( clock.incrementAndGet( ) );
+		return entry.value.join( );
+	}
+
+	/**
+	 * Removes a key from the cache
+	 *
+	 * @param key The key to remove
+	 * @return True if the key was present
+	 */
+	public boolean remove( final K key ) {
+		return entries.remove( key ) != null;
+	}
+
+	/**
+	 * Removes all entries from the cache
+	 */
+	public void clear( ) {
+		entries.clear( );
+	}
+
+	/** @return The number of entries in the cache */
+	public int size( ) {
+		return entries.size( );
+	}
+
+	/** @return The number of successful lookups */
+	public long getHits( ) {
+		return hits.sum( );
+	}
+
+	/** @return The number of failed lookups */
+	public long getMisses( ) {
+		return misses.sum( );
+	}
+
+	/**
+	 * @return A snapshot of the current cache statistics. The counters are
+	 *   read one by one and may therefore be slightly inconsistent while other
+	 *   threads use the cache
+	 */
+	public CacheStats getStats( ) {
+		final int size = entries.size( );
+		return new CacheStats( size, size, maxsize, hits.sum( ), misses.sum( ), evictions.sum( ), prunes.sum( ), pruneTime.sum( ), loads.sum( ), loadTime.sum( ) );
+	}
+
+	/**
+	 * Resets all cache statistics to zero
+	 */
+	public void resetStats( ) {
+		hits.reset( );
+		misses.reset( );
+		evictions.reset( );
+		prunes.reset( );
+		pruneTime.reset( );
+		loads.reset( );
+		loadTime.reset( );
+	}
+
+	/**
+	 * Exposes the statistics of this cache as MBean on the platform MBean server
+	 *
+	 * @param name The name to register the cache under
+	 * @return The object name of the registered MBean
+	 * @throws RuntimeException if the registration fails
+	 */
+	public ObjectName registerMBean( final String name ) {
+		return CacheMonitor.register( name, this::getStats );
+	}
+
+	/**
+	 * Prunes the cache if its completed entries exceed the maximum size and no
+	 * other thread is already pruning it. Prunes again if other threads have
+	 * filled the cache while it was being pruned, until pruning no longer
+	 * evicts any entry. Entries that are still being computed cannot be evicted
+	 * and therefore do not count towards the size limit.
+	 */
+	private void checkSize( ) {
+		while( entries.size( ) - pending.get( ) >= maxsize && pruneActive.compareAndSet( false, true ) ) {
+			final int evicted;
+			try {
+				evicted = prune( );
+			} finally {
+				pruneActive.set( false );
+			}
+			if( evicted == 0 ) return;
+		}
+	}
+
+	/**
+	 * Prunes the cache according to the chosen strategy. A random sample of the
+	 * entry scores is used to estimate the score below which the configured
+	 * fraction of entries is evicted. Entries that are still being computed are
+	 * never evicted.
+	 *
+	 * @return The number of evicted entries
+	 */
+	private int prune( ) {
+		final long start = System.nanoTime( );
+		final int size = entries.size( );
+		final double keepfraction = Math.min( 1.0, (double)prunesize / size );
+
+		// reservoir sample of the entry scores, every entry is picked with the
+		// same probability regardless of its position in the iteration order
+		final long[] sample = new long[ SAMPLE_SIZE ];
+		int n = 0, seen = 0;
+		final ThreadLocalRandom rnd = ThreadLocalRandom.current( );
+		for( final CacheEntry<V> e : entries.values( ) ) {
+			if( n < SAMPLE_SIZE ) {
+				sample[n++] = score( e );
+			} else {
+				final int j = rnd.nextInt( seen + 1 );
+				if( j < SAMPLE_SIZE ) sample[j] = score( e );
+			}
+			seen++;
+		}
+		if( n == 0 ) return 0;
+		prunes.increment( );
+
+		Arrays.sort( sample, 0, n );
+		final long threshold = sample[ Math.min( n - 1, (int)(n * (1.0 - keepfraction)) ) ];
+
+		// evict every completed entry that scores below the threshold, then
+		// entries that score equal to it if that did not evict enough
+		int evicted = 0;
+		for( final Iterator<CacheEntry<V>> it = entries.values( ).iterator( ); it.hasNext( ); ) {
+			final CacheEntry<V> e = it.next( );
+			if( e.value.isDone( ) && score( e ) < threshold ) { it.remove( ); evicted++; }
+		}
+		for( final Iterator<CacheEntry<V>> it = entries.values( ).iterator( ); it.hasNext( ) && entries.size( ) > prunesize; ) {
+			final CacheEntry<V> e = it.next( );
+			if( e.value.isDone( ) && score( e ) <= threshold ) { it.remove( ); evicted++; }
+		}
+
+		// concurrent accesses may have moved all scores past the sampled
+		// threshold, in which case any completed entry is as good a candidate
+		if( evicted == 0 )
+			for( final Iterator<CacheEntry<V>> it = entries.values( ).iterator( ); it.hasNext( ) && entries.size( ) > prunesize; ) {
+				if( it.next( ).value.isDone( ) ) { it.remove( ); evicted++; }
+			}
+		evictions.add( evicted );
+
+		// reset hit counts for the least hits recently strategy
+		if( pruning == PruneStrategy.LeastHitsRecently )
+			for( final CacheEntry<V> e : entries.values( ) ) e.hits.set( 0 );
+
+		pruneTime.add( System.nanoTime( ) - start );
+		return evicted;
+	}
+
+	/**
+	 * Determines the eviction score of an entry, lowest scores are evicted
+	 * first
+	 *
+	 * @param entry The entry
+	 * @return The score according to the prune strategy
+	 */
+	private long score( final CacheEntry<V> entry ) {
+		return pruning == PruneStrategy.Oldest ? entry.lastaccess : entry.hits.get( );
+	}
+
+	/**
+	 * Class that holds a single cache entry
+	 *
+	 * @param <V> The data type of the value
+	 */
+	private static class CacheEntry<V> {
+		/** The (possibly not yet computed) value */
+		protected final CompletableFuture<V> value;
+
+		/** The thread that is computing the value, null once it is done */
+		protected volatile Thread loader;
+
+		/** The number of cache hits */
+		protected final AtomicInteger hits;
+
+		/** The logical time of the last access */
+		protected volatile long lastaccess;
+
+		/**
+		 * Creates a new cache entry
+		 *
+		 * @param value The future that holds the value
+		 * @param time The logical time of creation
+		 */
+		protected CacheEntry( final CompletableFuture<V> value, final long time ) {
+			this.value = value;
+			this.hits = new AtomicInteger( );
+			this.lastaccess = time;
+		}
+
+		/**
+		 * Marks a hit of this cache entry
+		 *
+		 * @param time The current logical time
+		 */
+		protected void hit( final long time ) {
+			hits.incrementAndGet( );
+			lastaccess = time;
+		}
+	}
+}
@@ -0,0 +1,417 @@
+package aocutil.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import aocutil.collections.LongLongHashMap;
+
+/**
+ * Key/value store that keeps its entries in a memory-mapped file, outside of
+ * the Java heap. Can be used as second tier of a {@link Cache} to keep pruned
+ * entries available without the need to recompute them.
+ * <br/><br/>
+ * Entries are appended to a log that consists of fixed-size segments, each of
+ * which is mapped into memory. An in-memory index maps the 64-bit hash of the
+ * serialised key onto the offset of the most recent record with that hash.
+ * Every record links to the previous record with the same hash, so that hash
+ * collisions and overwritten keys are resolved by walking the chain from the
+ * newest record.
+ * <br/><br/>
+ * Overwritten records remain in the log until it is compacted. Compaction
+ * moves all live records to the front of the log and reuses the space after
+ * them for new records. It runs automatically when at least half of the
+ * bytes in the log belong to overwritten records, so repeatedly storing the
+ * same keys does not grow the file without bound.
+ *
+ * @author Joris
+ *
+ * @param <K> The data type of the key
+ * @param <V> The data type of the value
+ */
+public class DiskStore<K, V> implements Closeable {
+	/** The default segment size of 64 MiB */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+	/** The size of the record header: previous offset, key length and value length */
+	private static final int HEADER = Long.BYTES + 2 * Integer.BYTES;
+
+	/** The file channel of the log */
+	private final FileChannel channel;
+
+	/** The mapped segments of the log */
+	private final List<MappedByteBuffer> segments;
+
+	/** The size of a single segment in bytes */
+	private final int segmentsize;
+
+	/** The index of the segment that is written to, -1 if none yet */
+	private int writeseg;
+
+	/** The write position within the segment that is written to */
+	private int writepos;
+
+	/** The end of the data in every segment before the one written to */
+	private final List<Integer> ends;
+
+	/** The number of bytes used by overwritten records */
+	private long garbage;
+
+	/** The offset of the newest record per key hash */
+	private final LongLongHashMap index;
+
+	/** The number of live records in the store */
+	private int records;
+
+	/** The key serializer */
+	private final Serializer<K> keys;
+
+	/** The value serializer */
+	private final Serializer<V> values;
+
+	/**
+	 * Creates a new store that uses the given file. Any existing content of the
+	 * file is discarded.
+	 *
+	 * @param file The file to store the log in
+	 * @param keys The serializer for the keys
+	 * @param values The serializer for the values
+	 * @param segmentsize The size of a log segment in bytes, no record can be
+	 *   larger than this
+	 * @throws IOException if the file could not be opened
+	 */
+	public DiskStore( final Path file, final Serializer<K> keys, final Serializer<V> values, final int segmentsize ) throws IOException {
+		this( FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ), keys, values, segmentsize );
+	}
+
+	/**
+	 * Creates a new store on an opened file channel
+	 *
+	 * @param channel The file channel
+	 * @param keys The serializer for the keys
+	 * @param values The serializer for the values
+	 * @param segmentsize The size of a log segment in bytes
+	 */
+	private DiskStore( final FileChannel channel, final Serializer<K> keys, final Serializer<V> values, final int segmentsize ) {
+		if( segmentsize <= HEADER ) throw new IllegalArgumentException( "Invalid segment size: " + segmentsize );
+		this.channel = channel;
+		this.keys = keys;
+		this.values = values;
+		this.segmentsize = segmentsize;
+		this.segments = new ArrayList<>( );
+		this.writeseg = -1;
+		this.writepos = 0;
+		this.ends = new ArrayList<>( );
+		this.index = new LongLongHashMap( );
+		this.records = 0;
+		this.garbage = 0;
+	}
+
+	/**
+	 * Creates a new store in a temporary file that is deleted when the store
+	 * is closed
+	 *
+	 * @param <K> The data type of the key
+	 * @param <V> The data type of the value
+	 * @param keys The serializer for the keys
+	 * @param values The serializer for the values
+	 * @return The new store
+	 * @throws IOException if the temporary file could not be created
+	 */
+	public static <K, V> DiskStore<K, V> temporary( final Serializer<K> keys, final Serializer<V> values ) throws IOException {
+		final Path file = Files.createTempFile( "aocutil-cache", ".log" );
+		file.toFile( ).deleteOnExit( );
+		final FileChannel channel = FileChannel.open( file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE );
+		return new DiskStore<>( channel, keys, values, DEFAULT_SEGMENT_SIZE );
+	}
+
+	/**
+	 * Stores a key/value pair, replaces the value if the key was already stored
+	 *
+	 * @param key The key
+	 * @param value The value
+	 * @throws IllegalArgumentException if the record does not fit in a segment
+	 * @throws UncheckedIOException if the log could not be extended
+	 */
+	public void put( final K key, final V value ) {
+		final byte[] kb = keys.toBytes( key );
+		final byte[] vb = values.toBytes( value );
+		final int length = HEADER + kb.length + vb.length;
+		if( length > segmentsize ) throw new IllegalArgumentException( "Record of " + length + " bytes exceeds the segment size " + segmentsize );
+
+		final long hash = hash( kb );
+		final long old = find( kb, hash );
+		if( old >= 0 ) {
+			final ByteBuffer buf = record( old );
+			garbage += HEADER + buf.getInt( buf.position( ) + Long.BYTES ) + buf.getInt( buf.position( ) + Long.BYTES + Integer.BYTES );
+		} else {
+			records++;
+		}
+		index.put( hash, append( kb, vb, index.get( hash, -1 ) ) );
+
+		final long used = getBytesUsed( );
+		if( used > segmentsize && garbage * 2 >= used ) compact( );
+	}
+
+	/**
+	 * Retrieves the value of a key
+	 *
+	 * @param key The key
+	 * @return The most recently stored value of the key, null if the key is
+	 *   not in the store
+	 */
+	public V get( final K key ) {
+		final byte[] kb = keys.toBytes( key );
+		final long offset = find( kb, hash( kb ) );
+		if( offset < 0 ) return null;
+
+		final ByteBuffer buf = record( offset );
+		buf.position( buf.position( ) + Long.BYTES );
+		final int kl = buf.getInt( );
+		final int vl = buf.getInt( );
+		buf.position( buf.position( ) + kl );
+		return values.read( buf, vl );
+	}
+
+	/**
+	 * Checks whether a key is in the store, without reading its value
+	 *
+	 * @param key The key
+	 * @return True if a value is stored for the key
+	 */
+	public boolean contains( final K key ) {
+		final byte[] kb = keys.toBytes( key );
+		return find( kb, hash( kb ) ) >= 0;
+	}
+
+	/**
+	 * Removes a key from the store. Its records are unlinked from the index
+	 * chain and become garbage that is reclaimed by the next compaction.
+	 *
+	 * @param key The key
+	 * @return True if the key was in the store
+	 */
+	public boolean remove( final K key ) {
+		final byte[] kb = keys.toBytes( key );
+		final long hash = hash( kb );
+
+		// unlink every record of the key, older overwritten records included,
+		// so that none of them can be found again
+		boolean found = false;
+		long newer = -1;
+		long offset = index.get( hash, -1 );
+		while( offset >= 0 ) {
+			final ByteBuffer buf = record( offset );
+			final int pos = buf.position( );
+			final long prev = buf.getLong( pos );
+			final int kl = buf.getInt( pos + Long.BYTES );
+			buf.position( pos + HEADER );
+			if( kl == kb.length && matches( buf, kb ) ) {
+				if( !found ) garbage += HEADER + kl + buf.getInt( pos + Long.BYTES + Integer.BYTES );
+				found = true;
+				if( newer < 0 ) {
+					if( prev < 0 ) index.remove( hash ); else index.put( hash, prev );
+				} else {
+					final ByteBuffer nb = record( newer );
+					nb.putLong( nb.position( ), prev );
+				}
+			} else {
+				newer = offset;
+			}
+			offset = prev;
+		}
+
+		if( found ) records--;
+		return found;
+	}
+
+	/** @return The number of distinct keys in the store */
+	public int getRecordCount( ) {
+		return records;
+	}
+
+	/** @return The number of bytes used by the log, including overwritten records */
+	public long getBytesUsed( ) {
+		return writeseg < 0 ? 0 : (long)writeseg * segmentsize + writepos;
+	}
+
+	/** @return The number of bytes used by overwritten records */
+	public long getGarbageBytes( ) {
+		return garbage;
+	}
+
+	/**
+	 * Compacts the log by moving all live records to its front, in their
+	 * original order. The space after them is reused for new records, the
+	 * file itself is not truncated.
+	 */
+	public void compact( ) {
+		if( writeseg < 0 ) return;
+
+		// determine the live records before moving anything, as moving records
+		// overwrites the old index chains
+		final long[] live = new long[ records ];
+		int n = 0;
+		for( int s = 0; s <= writeseg; s++ ) {
+			final ByteBuffer buf = segments.get( s ).duplicate( );
+			final int end = s < writeseg ? ends.get( s ) : writepos;
+			for( int pos = 0; pos < end; ) {
+				final int kl = buf.getInt( pos + Long.BYTES );
+				final int vl = buf.getInt( pos + Long.BYTES + Integer.BYTES );
+				final byte[] kb = new byte[ kl ];
+				buf.position( pos + HEADER );
+				buf.get( kb );
+
+				final long offset = (long)s * segmentsize + pos;
+				if( find( kb, hash( kb ) ) == offset ) live[n++] = offset;
+				pos += HEADER + kl + vl;
+			}
+		}
+
+		// move them to the front, a record never moves to a later offset so
+		// copying it out before writing it is safe
+		index.clear( );
+		ends.clear( );
+		writeseg = -1;
+		writepos = 0;
+		for( int i = 0; i < n; i++ ) {
+			final ByteBuffer buf = record( live[i] );
+			buf.position( buf.position( ) + Long.BYTES );
+			final byte[] kb = new byte[ buf.getInt( ) ];
+			final byte[] vb = new byte[ buf.getInt( ) ];
+			buf.get( kb );
+			buf.get( vb );
+
+			final long hash = hash( kb );
+			index.put( hash, append( kb, vb, index.get( hash, -1 ) ) );
+		}
+		garbage = 0;
+	}
+
+	/**
+	 * Closes the store and releases the file
+	 *
+	 * @throws IOException if the file could not be closed
+	 */
+	@Override
+	public void close( ) throws IOException {
+		segments.clear( );
+		index.clear( );
+		channel.close( );
+	}
+
+	/**
+	 * Finds the newest record of a key
+	 *
+	 * @param kb The key bytes
+	 * @param hash The hash of the key bytes
+	 * @return The offset of the record, -1 if the key is not in the store
+	 */
+	private long find( final byte[] kb, final long hash ) {
+		long offset = index.get( hash, -1 );
+		while( offset >= 0 ) {
+			final ByteBuffer buf = record( offset );
+			final int pos = buf.position( );
+			if( buf.getInt( pos + Long.BYTES ) == kb.length ) {
+				buf.position( pos + HEADER );
+				if( matches( buf, kb ) ) return offset;
+			}
+			offset = buf.getLong( pos );
+		}
+		return -1;
+	}
+
+	/**
+	 * @param offset The offset of a record in the log
+	 * @return A buffer over its segment, positioned at the record
+	 */
+	private ByteBuffer record( final long offset ) {
+		final ByteBuffer buf = segments.get( (int)(offset / segmentsize) ).duplicate( );
+		buf.position( (int)(offset % segmentsize) );
+		return buf;
+	}
+
+	/**
+	 * Appends a record to the log, continuing in the next segment if it does
+	 * not fit in the current one
+	 *
+	 * @param kb The key bytes
+	 * @param vb The value bytes
+	 * @param prev The offset of the previous record with the same key hash
+	 * @return The offset of the record
+	 * @throws UncheckedIOException if the log could not be extended
+	 */
+	private long append( final byte[] kb, final byte[] vb, final long prev ) {
+		final int length = HEADER + kb.length + vb.length;
+		if( writeseg < 0 || writepos + length > segmentsize ) nextSegment( );
+		final long offset = (long)writeseg * segmentsize + writepos;
+
+		final ByteBuffer buf = segments.get( writeseg ).duplicate( );
+		buf.position( writepos );
+		buf.putLong( prev );
+		buf.putInt( kb.length );
+		buf.putInt( vb.length );
+		buf.put( kb );
+		buf.put( vb );
+		writepos += length;
+		return offset;
+	}
+
+	/**
+	 * Continues writing at the start of the next segment, mapping a new one at
+	 * the end of the log if there are no segments left to reuse
+	 *
+	 * @throws UncheckedIOException if the segment could not be mapped
+	 */
+	private void nextSegment( ) {
+		if( writeseg >= 0 ) ends.add( writepos );
+		if( writeseg + 1 == segments.size( ) ) {
+			try {
+				segments.add( channel.map( MapMode.READ_WRITE, (long)segments.size( ) * segmentsize, segmentsize ) );
+			} catch( IOException e ) {
+				throw new UncheckedIOException( "Failed to extend the disk store", e );
+			}
+		}
+		writeseg++;
+		writepos = 0;
+	}
+
+	/**
+	 * Checks whether the buffer holds the key bytes at its current position,
+	 * without moving the position
+	 *
+	 * @param buf The buffer
+	 * @param kb The key bytes
+	 * @return True if the bytes match
+	 */
+	private static boolean matches( final ByteBuffer buf, final byte[] kb ) {
+		final int pos = buf.position( );
+		for( int i = 0; i < kb.length; i++ )
+			if( buf.get( pos + i ) != kb[i] ) return false;
+		return true;
+	}
+
+	/**
+	 * Computes the 64-bit FNV-1a hash of the key bytes
+	 *
+	 * @param bytes The key bytes
+	 * @return The hash
+	 */
+	private static long hash( final byte[] bytes ) {
+		long h = 0xcbf29ce484222325L;
+		for( final byte b : bytes ) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+}
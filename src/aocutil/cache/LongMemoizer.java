@@ -0,0 +1,80 @@
+package aocutil.cache;
+
+import java.util.function.LongUnaryOperator;
+
+import aocutil.collections.LongLongHashMap;
+
+/**
+ * Memoises the results of a (recursive) function from long to long, without
+ * boxing its arguments or results. Results are stored in a primitive
+ * {@link LongLongHashMap} and are never evicted.
+ * <br/><br/>
+ * The function body receives the memoised function itself as argument, so
+ * that recursive calls also go through the memo table. A lookup of a
+ * memoised value takes a single hash probe.
+ *
+ * @author Joris
+ */
+public class LongMemoizer implements LongUnaryOperator {
+	/** Value that marks a missing key in lookups */
+	private static final long MISSING = Long.MIN_VALUE;
+
+	/** The function body */
+	private final Recursive body;
+
+	/** The memoised results */
+	private final LongLongHashMap memo;
+
+	/**
+	 * A function that can invoke its memoised self recursively
+	 */
+	@FunctionalInterface
+	public interface Recursive {
+		/**
+		 * Computes the function value
+		 *
+		 * @param self The memoised function to use for recursive calls
+		 * @param key The function argument
+		 * @return The function value
+		 */
+		long apply( final LongUnaryOperator self, final long key );
+	}
+
+	/**
+	 * Creates a new memoised function
+	 *
+	 * @param body The function body
+	 */
+	public LongMemoizer( final Recursive body ) {
+		this.body = body;
+		this.memo = new LongLongHashMap( );
+	}
+
+	/**
+	 * Returns the function value, computes it if it has not been memoised yet
+	 *
+	 * @param key The function argument
+	 * @return The function value
+	 */
+	@Override
+	public long applyAsLong( final long key ) {
+		final long cached = memo.get( key, MISSING );
+		if( cached != MISSING || memo.containsKey( key ) ) return cached;
+
+		final long value = body.apply( this, key );
+		memo.put( key, value );
+		return value;
+	}
+
+	/** @return The number of memoised results */
+	public int size( ) {
+		return memo.size( );
+	}
+
+	/**
+	 * Removes all memoised results
+	 */
+	public void clear( ) {
+		memo.clear( );
+	}
+}
@@ -0,0 +1,173 @@
+package aocutil.cache;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Memoises the results of a (recursive) function in a {@link Cache}. Every
+ * call performs a single cache lookup, the result is only computed and stored
+ * on a miss.
+ * <br/><br/>
+ * The function body receives the memoised function itself as argument, so
+ * that recursive calls also go through the cache. The value is computed
+ * outside of any map operation, hence recursion can never corrupt the cache
+ * or cause a ConcurrentModificationException. Null results are not memoised.
+ *
+ * @author Joris
+ *
+ * @param <K> The data type of the function argument
+ * @param <V> The data type of the function result
+ */
+public class Memoizer<K, V> implements Function<K, V> {
+	/** The function body */
+	private final Recursive<K, V> body;
+
+	/** The cache that holds the results */
+	private final Cache<K, V> cache;
+	
+	/** The loader that invokes the body for a missing key */
+	private final Function<K, V> loader;
+
+	/**
+	 * A function that can invoke its memoised self recursively
+	 *
+	 * @param <K> The data type of the function argument
+	 * @param <V> The data type of the function result
+	 */
+	@FunctionalInterface
+	public interface Recursive<K, V> {
+		/**
+		 * Computes the function value
+		 *
+		 * @param self The memoised function to use for recursive calls
+		 * @param key The function argument
+		 * @return The function value
+		 */
+		V apply( final Function<K, V> self, final K key );
+	}
+
+	/**
+	 * A function of two arguments that can invoke its memoised self
+	 * recursively
+	 *
+	 * @param <A> The data type of the first argument
+	 * @param <B> The data type of the second argument
+	 * @param <V> The data type of the function result
+	 */
+	@FunctionalInterface
+	public interface RecursiveBi<A, B, V> {
+		/**
+		 * Computes the function value
+		 *
+		 * @param self The memoised function to use for recursive calls
+		 * @param a The first argument
+		 * @param b The second argument
+		 * @return The function value
+		 */
+		V apply( final BiFunction<A, B, V> self, final A a, final B b );
+	}
+
+	/**
+	 * Creates a new memoised function that uses a default cache
+	 *
+	 * @param body The function body
+	 */
+	public Memoizer( final Recursive<K, V> body ) {
+		this( body, new Cache<>( ) );
+	}
+
+	/**
+	 * Creates a new memoised function that stores its results in the given
+	 * cache
+	 *
+	 * @param body The function body
+	 * @param cache The cache to use
+	 */
+	public Memoizer( final Recursive<K, V> body, final Cache<K, V> cache ) {
+		this.body = body;
+		this.cache = cache;
+		this.loader = key -> this.body.apply( this, key );
+	}
+
+	/**
+	 * Memoises a non-recursive function
+	 *
+	 * @param <K> The data type of the function argument
+	 * @param <V> The data type of the function result
+	 * @param func The function to memoise
+	 * @return The memoised function
+	 */
+	public static <K, V> Memoizer<K, V> of( final Function<K, V> func ) {
+		return new Memoizer<>( (self, key) -> func.apply( key ) );
+	}
+
+	/**
+	 * Memoises a (recursive) function of two arguments
+	 *
+	 * @param <A> The data type of the first argument
+	 * @param <B> The data type of the second argument
+	 * @param <V> The data type of the function result
+	 * @param body The function body
+	 * @return The memoised function
+	 */
+	public static <A, B, V> BiFunction<A, B, V> ofBi( final RecursiveBi<A, B, V> body ) {
+		final Memoizer<Pair<A, B>, V> memo = new Memoizer<>( (self, p) -> body.apply( (a, b) -> self.apply( new Pair<>( a, b ) ), p.a, p.b ) );
+		return (a, b) -> memo.apply( new Pair<>( a, b ) );
+	}
+
+	/**
+	 * Returns the function value, computes it if it has not been memoised yet
+	 *
+	 * @param key The function argument
+	 * @return The function value
+	 */
+	@Override
+	public V apply( final K key ) {
+		return cache.computeIfAbsent( key, loader );
+	}
+
+	/** @return The cache that holds the memoised results */
+	public Cache<K, V> getCache( ) {
+		return cache;
+	}
+
+	/**
+	 * Pair of arguments that is used as key for two-argument functions
+	 *
+	 * @param <A> The type of the first argument
+	 * @param <B> The type of the second argument
+	 */
+	private static class Pair<A, B> {
+		/** The first argument */
+		private final A a;
+
+		/** The second argument */
+		private final B b;
+
+		/**
+		 * Creates a new pair
+		 *
+		 * @param a The first argument
+		 * @param b The second argument
+		 */
+		private Pair( final A a, final B b ) {
+			this.a = a;
+			this.b = b;
+		}
+
+		/** @return The combined hash of both arguments */
+		@Override
+		public int hashCode( ) {
+			return 31 * (a == null ? 0 : a.hashCode( )) + (b == null ? 0 : b.hashCode( ));
+		}
+
+		/** @return True if both arguments are equal */
+		@Override
+		public boolean equals( final Object obj ) {
+			if( obj == this ) return true;
+			if( !(obj instanceof Pair) ) return false;
+			final Pair<?, ?> p = (Pair<?, ?>)obj;
+			return (a == null ? p.a == null : a.equals( p.a )) && (b == null ? p.b == null : b.equals( p.b ));
+		}
+	}
+}
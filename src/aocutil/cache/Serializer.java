@@ -0,0 +1,95 @@
+package aocutil.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values to and from their binary representation, so that
+ * they can be stored outside of the heap
+ *
+ * @author Joris
+ * @param <T> The type of the objects that are serialised
+ */
+public interface Serializer<T> {
+	/** Serializer for Long objects */
+	Serializer<Long> LONG = new Serializer<Long>( ) {
+		@Override
+		public int size( final Long value ) { return Long.BYTES; }
+
+		@Override
+		public void write( final ByteBuffer buffer, final Long value ) { buffer.putLong( value ); }
+
+		@Override
+		public Long read( final ByteBuffer buffer, final int size ) { return buffer.getLong( ); }
+	};
+
+	/** Serializer for Integer objects */
+	Serializer<Integer> INT = new Serializer<Integer>( ) {
+		@Override
+		public int size( final Integer value ) { return Integer.BYTES; }
+
+		@Override
+		public void write( final ByteBuffer buffer, final Integer value ) { buffer.putInt( value ); }
+
+		@Override
+		public Integer read( final ByteBuffer buffer, final int size ) { return buffer.getInt( ); }
+	};
+
+	/** Serializer for Strings, using UTF-8 encoding */
+	Serializer<String> STRING = new Serializer<String>( ) {
+		@Override
+		public int size( final String value ) { return value.getBytes( StandardCharsets.UTF_8 ).length; }
+
+		@Override
+		public byte[] toBytes( final String value ) { return value.getBytes( StandardCharsets.UTF_8 ); }
+
+		@Override
+		public void write( final ByteBuffer buffer, final String value ) { buffer.put( value.getBytes( StandardCharsets.UTF_8 ) ); }
+
+		@Override
+		public String read( final ByteBuffer buffer, final int size ) {
+			final byte[] bytes = new byte[ size ];
+			buffer.get( bytes );
+			return new String( bytes, StandardCharsets.UTF_8 );
+		}
+	};
+
+	/**
+	 * Determines the number of bytes needed to store the object
+	 *
+	 * @param value The object
+	 * @return The number of bytes of its binary representation
+	 */
+	int size( final T value );
+
+	/**
+	 * Writes the object at the current position of the buffer
+	 *
+	 * @param buffer The buffer to write to
+	 * @param value The object to write
+	 */
+	void write( final ByteBuffer buffer, final T value );
+
+	/**
+	 * Reads an object from the current position of the buffer
+	 *
+	 * @param buffer The buffer to read from
+	 * @param size The number of bytes that was written for the object
+	 * @return The object
+	 */
+	T read( final ByteBuffer buffer, final int size );
+
+	/**
+	 * Serialises the object into a new byte array. Serializers for which
+	 * determining the size requires encoding the object should override this
+	 * to encode it only once.
+	 *
+	 * @param value The object
+	 * @return The binary representation of the object
+	 */
+	default byte[] toBytes( final T value ) {
+		final byte[] bytes = new byte[ size( value ) ];
+		write( ByteBuffer.wrap( bytes ), value );
+		return bytes;
+	}
+}
@@ -0,0 +1,119 @@
+package aocutil.collections;
+
+/**
+ * Disjoint-set (union-find) structure over the elements 0 to n-1. Uses union
+ * by rank and path halving, so that any sequence of operations runs in
+ * near-constant amortised time per operation.
+ *
+ * @author Joris
+ */
+public class DisjointSet {
+	/** The parent of every element, roots are their own parent */
+	private final int[] parent;
+
+	/** The rank (upper bound on tree height) of every root */
+	private final byte[] rank;
+
+	/** The number of elements in the set of every root */
+	private final int[] size;
+
+	/** The number of disjoint sets */
+	private int count;
+
+	/**
+	 * Creates a new disjoint-set structure in which every element is in a set
+	 * of its own
+	 *
+	 * @param n The number of elements
+	 */
+	public DisjointSet( final int n ) {
+		parent = new int[ n ];
+		rank = new byte[ n ];
+		size = new int[ n ];
+		for( int i = 0; i < n; i++ ) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		count = n;
+	}
+
+	/**
+	 * Finds the representative element of the set that contains the element
+	 *
+	 * @param x The element
+	 * @return The representative of its set
+	 */
+	public int find( int x ) {
+		while( parent[x] != x ) {
+			parent[x] = parent[ parent[x] ];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Merges the sets that contain the two elements
+	 *
+	 * @param a The first element
+	 * @param b The second element
+	 * @return True if the sets were merged, false if both elements were
+	 *   already in the same set
+	 */
+	public boolean union( final int a, final int b ) {
+		int ra = find( a ), rb = find( b );
+		if( ra == rb ) return false;
+
+		if( rank[ra] < rank[rb] ) { final int t = ra; ra = rb; rb = t; }
+		parent[rb] = ra;
+		size[ra] += size[rb];
+		if( rank[ra] == rank[rb] ) rank[ra]++;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Checks whether two elements are in the same set
+	 *
+	 * @param a The first element
+	 * @param b The second element
+	 * @return True if both are in the same set
+	 */
+	public boolean connected( final int a, final int b ) {
+		return find( a ) == find( b );
+	}
+
+	/**
+	 * @param x The element
+	 * @return The number of elements in the set that contains the element
+	 */
+	public int size( final int x ) {
+		return size[ find( x ) ];
+	}
+
+	/** @return The number of elements */
+	public int elements( ) {
+		return parent.length;
+	}
+
+	/** @return The number of disjoint sets */
+	public int count( ) {
+		return count;
+	}
+
+	/**
+	 * Numbers the sets 0 to count()-1, in order of their lowest element
+	 *
+	 * @return The set number of every element
+	 */
+	public int[] getSetIds( ) {
+		final int[] ids = new int[ parent.length ];
+		final int[] rootid = new int[ parent.length ];
+		int next = 0;
+		for( int i = 0; i < parent.length; i++ ) {
+			final int r = find( i );
+			if( rootid[r] == 0 ) rootid[r] = ++next;
+			ids[i] = rootid[r] - 1;
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,90 @@
+package aocutil.collections;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Hash set of primitive long values, for instance to keep track of visited
+ * states that are encoded as long. Stores the values in a single open
+ * addressing table and thus avoids the boxing and entry objects of a
+ * <code>HashSet&lt;Long&gt;</code>.
+ * 
+ * @author Joris
+ */
+public class LongHashSet extends LongHashTable {
+	/**
+	 * Creates a new, empty set
+	 */
+	public LongHashSet( ) {
+		this( 16 );
+	}
+	
+	/**
+	 * Creates a new, empty set that can hold the expected number of values
+	 * without growing
+	 * 
+	 * @param expected The expected number of values
+	 */
+	public LongHashSet( final int expected ) {
+		super( expected );
+	}
+	
+	/**
+	 * Adds a value to the set
+	 * 
+	 * @param value The value to add
+	 * @return True if the value was added, false if it was already in the set
+	 */
+	public boolean add( final long value ) {
+		return insert( value ) < 0;
+	}
+	
+	/**
+	 * Checks whether the set contains a value
+	 * 
+	 * @param value The value to check
+	 * @return True iff the value is in the set
+	 */
+	public boolean contains( final long value ) {
+		return indexOf( value ) >= 0;
+	}
+	
+	/**
+	 * Removes a value from the set
+	 * 
+	 * @param value The value to remove
+	 * @return True if the value was removed, false if it was not in the set
+	 */
+	public boolean remove( final long value ) {
+		return removeKey( value );
+	}
+	
+	/**
+	 * Performs the given action for every value in the set
+	 * 
+	 * @param action The action to perform
+	 */
+	public void forEach( final LongConsumer action ) {
+		if( hasZero ) action.accept( 0 );
+		for( final long k : keys )
+			if( k != 0 ) action.accept( k );
+	}
+	
+	/** @return Array that contains all values in the set */
+	public long[] toArray( ) {
+		return keys( );
+	}
+	
+	/* The set stores no values */
+	@Override protected void allocateValues( final int length ) { }
+	@Override protected Object values( ) { return null; }
+	@Override protected void transferValue( final Object oldvalues, final int from, final int to ) { }
+	@Override protected void moveValue( final int from, final int to ) { }
+	
+	/** @return The values in the set */
+	@Override
+	public String toString( ) {
+		final StringBuilder sb = new StringBuilder( "[" );
+		forEach( v -> sb.append( sb.length( ) > 1 ? ", " : "" ).append( v ) );
+		return sb.append( "]" ).toString( );
+	}
+}
@@ -0,0 +1,230 @@
+package aocutil.collections;
+
+import java.util.Arrays;
+
+/**
+ * Base class for the open addressing hash tables that use primitive long
+ * keys. Keys are stored in a single array and collisions are resolved by
+ * linear probing. Removal uses backward shifting so that no tombstones are
+ * needed.
+ * <br/><br/>
+ * A key of 0 marks a free slot, the key 0 itself is therefore tracked by a
+ * separate flag. Subclasses that store values keep the value of key 0 at the
+ * index just beyond the last slot, i.e. at index <code>keys.length</code>.
+ *
+ * @author Joris
+ */
+abstract class LongHashTable {
+	/** The maximal fraction of slots in use before the table is grown */
+	private static final double LOAD_FACTOR = 0.6;
+
+	/** The keys per slot, 0 for free slots */
+	protected long[] keys;
+
+	/** True if the table contains the key 0 */
+	protected boolean hasZero;
+
+	/** The number of keys in the table */
+	protected int size;
+
+	/** The bit mask that maps a hash onto a slot */
+	protected int mask;
+
+	/** The number of keys at which the table is grown */
+	private int threshold;
+
+	/**
+	 * Creates a new table that can hold the expected number of keys without
+	 * growing
+	 *
+	 * @param expected The expected number of keys
+	 */
+	protected LongHashTable( final int expected ) {
+		int capacity = 4;
+		while( capacity * LOAD_FACTOR < expected ) capacity <<= 1;
+		allocate( capacity );
+	}
+
+	/**
+	 * Allocates a new, empty table
+	 *
+	 * @param capacity The number of slots, must be a power of two
+	 */
+	private void allocate( final int capacity ) {
+		keys = new long[ capacity ];
+		mask = capacity - 1;
+		threshold = (int)(capacity * LOAD_FACTOR);
+		allocateValues( capacity + 1 );
+	}
+
+	/**
+	 * Spreads the bits of a key to compute its hash
+	 *
+	 * @param key The key
+	 * @return The hash value
+	 */
+	protected static int mix( final long key ) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	/**
+	 * Finds the slot of a key
+	 *
+	 * @param key The key to find
+	 * @return The slot index of the key, -1 if not in the table
+	 */
+	protected int indexOf( final long key ) {
+		if( key == 0 ) return hasZero ? keys.length : -1;
+
+		int i = mix( key ) & mask;
+		while( keys[i] != 0 ) {
+			if( keys[i] == key ) return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the slot of a key, claims a new slot if the key is not yet in the
+	 * table
+	 *
+	 * @param key The key
+	 * @return The slot index if the key was already in the table, or -(slot
+	 *   index) - 1 if the key has been newly inserted
+	 */
+	protected int insert( final long key ) {
+		if( key == 0 ) {
+			if( hasZero ) return keys.length;
+			hasZero = true;
+			size++;
+			return -keys.length - 1;
+		}
+
+		if( size >= threshold ) rehash( keys.length << 1 );
+
+		int i = mix( key ) & mask;
+		while( keys[i] != 0 ) {
+			if( keys[i] == key ) return i;
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = key;
+		size++;
+		return -i - 1;
+	}
+
+	/**
+	 * Removes a key from the table, shifts back any subsequent keys of the
+	 * same probe sequence to fill the gap
+	 *
+	 * @param key The key to remove
+	 * @return True if the key was removed, false if it was not in the table
+	 */
+	protected boolean removeKey( final long key ) {
+		if( key == 0 ) {
+			if( !hasZero ) return false;
+			hasZero = false;
+			size--;
+			return true;
+		}
+
+		final int idx = indexOf( key );
+		if( idx < 0 ) return false;
+
+		int gap = idx, i = idx;
+		while( true ) {
+			i = (i + 1) & mask;
+			if( keys[i] == 0 ) break;
+
+			// move the key into the gap iff the gap is on its probe sequence
+			final int home = mix( keys[i] ) & mask;
+			if( ((i - home) & mask) >= ((i - gap) & mask) ) {
+				keys[gap] = keys[i];
+				moveValue( i, gap );
+				gap = i;
+			}
+		}
+
+		keys[gap] = 0;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Grows the table and reinserts all keys
+	 *
+	 * @param capacity The new number of slots
+	 */
+	private void rehash( final int capacity ) {
+		final long[] oldkeys = keys;
+		final Object oldvalues = values( );
+		allocate( capacity );
+
+		for( int i = 0; i < oldkeys.length; i++ ) {
+			if( oldkeys[i] == 0 ) continue;
+
+			int j = mix( oldkeys[i] ) & mask;
+			while( keys[j] != 0 ) j = (j + 1) & mask;
+			keys[j] = oldkeys[i];
+			transferValue( oldvalues, i, j );
+		}
+		if( hasZero ) transferValue( oldvalues, oldkeys.length, keys.length );
+	}
+
+	/**
+	 * Allocates the value storage of the table
+	 *
+	 * @param length The number of values to allocate
+	 */
+	protected abstract void allocateValues( final int length );
+
+	/** @return The current value storage, null if the table stores no values */
+	protected abstract Object values( );
+
+	/**
+	 * Copies a value from the old value storage into the current one
+	 *
+	 * @param oldvalues The old value storage as returned by values()
+	 * @param from The index in the old storage
+	 * @param to The index in the current storage
+	 */
+	protected abstract void transferValue( final Object oldvalues, final int from, final int to );
+
+	/**
+	 * Moves a value within the current value storage
+	 *
+	 * @param from The index to move the value from
+	 * @param to The index to move the value to
+	 */
+	protected abstract void moveValue( final int from, final int to );
+
+	/** @return The number of keys in the table */
+	public int size( ) {
+		return size;
+	}
+
+	/** @return True if the table contains no keys */
+	public boolean isEmpty( ) {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all keys from the table
+	 */
+	public void clear( ) {
+		Arrays.fill( keys, 0 );
+		hasZero = false;
+		size = 0;
+	}
+
+	/** @return Array that contains all keys in the table, in no particular order */
+	public long[] keys( ) {
+		final long[] result = new long[ size ];
+		int idx = 0;
+		if( hasZero ) result[idx++] = 0;
+		for( final long k : keys )
+			if( k != 0 ) result[idx++] = k;
+		return result;
+	}
+}
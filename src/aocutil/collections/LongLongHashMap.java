@@ -0,0 +1,172 @@
+package aocutil.collections;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Hash map from primitive long keys to primitive long values, for instance to
+ * store distances of states that are encoded as long. Stores the entries in
+ * a single open addressing table and thus avoids the boxing and entry objects
+ * of a <code>HashMap&lt;Long, Long&gt;</code>.
+ * 
+ * @author Joris
+ */
+public class LongLongHashMap extends LongHashTable {
+	/** The values per slot, the value of key 0 is stored at the last index */
+	protected long[] values;
+	
+	/**
+	 * Creates a new, empty map
+	 */
+	public LongLongHashMap( ) {
+		this( 16 );
+	}
+	
+	/**
+	 * Creates a new, empty map that can hold the expected number of keys
+	 * without growing
+	 * 
+	 * @param expected The expected number of keys
+	 */
+	public LongLongHashMap( final int expected ) {
+		super( expected );
+	}
+	
+	/**
+	 * Sets the value of a key
+	 * 
+	 * @param key The key
+	 * @param value The value to store for the key
+	 */
+	public void put( final long key, final long value ) {
+		final int idx = insert( key );
+		values[ idx < 0 ? -idx - 1 : idx ] = value;
+	}
+	
+	/**
+	 * Sets the value of a key only if the key is not yet in the map
+	 * 
+	 * @param key The key
+	 * @param value The value to store for the key
+	 * @return True if the value was stored, false if the key already had a
+	 *   value
+	 */
+	public boolean putIfAbsent( final long key, final long value ) {
+		final int idx = insert( key );
+		if( idx >= 0 ) return false;
+		values[ -idx - 1 ] = value;
+		return true;
+	}
+	
+	/**
+	 * Adds the given amount to the value of a key. Keys that are not yet in the
+	 * map are inserted with the amount as value.
+	 * 
+	 * @param key The key
+	 * @param amount The amount to add
+	 * @return The new value of the key
+	 */
+	public long add( final long key, final long amount ) {
+		final int idx = insert( key );
+		if( idx < 0 ) return values[ -idx - 1 ] = amount;
+		return values[ idx ] += amount;
+	}
+	
+	/**
+	 * Retrieves the value of a key
+	 * 
+	 * @param key The key
+	 * @return The value of the key
+	 * @throws NoSuchElementException if the key is not in the map
+	 */
+	public long get( final long key ) {
+		final int idx = indexOf( key );
+		if( idx < 0 ) throw new NoSuchElementException( "The key " + key + " has no value in the map" );
+		return values[ idx ];
+	}
+	
+	/**
+	 * Retrieves the value of a key, returns the default value if the key is not
+	 * in the map
+	 * 
+	 * @param key The key
+	 * @param defValue The value to return if the key is not in the map
+	 * @return The value of the key or defValue
+	 */
+	public long get( final long key, final long defValue ) {
+		final int idx = indexOf( key );
+		return idx >= 0 ? values[ idx ] : defValue;
+	}
+	
+	/**
+	 * Checks whether the map contains a key
+	 * 
+	 * @param key The key to check
+	 * @return True iff the key has a value in the map
+	 */
+	public boolean containsKey( final long key ) {
+		return indexOf( key ) >= 0;
+	}
+	
+	/**
+	 * Removes a key and its value from the map
+	 * 
+	 * @param key The key to remove
+	 * @return True if the key was removed, false if it was not in the map
+	 */
+	public boolean remove( final long key ) {
+		return removeKey( key );
+	}
+	
+	/**
+	 * Performs the given action for every entry in the map
+	 * 
+	 * @param action The action to perform
+	 */
+	public void forEach( final EntryConsumer action ) {
+		if( hasZero ) action.accept( 0, values[ keys.length ] );
+		for( int i = 0; i < keys.length; i++ )
+			if( keys[i] != 0 ) action.accept( keys[i], values[i] );
+	}
+	
+	@Override
+	protected void allocateValues( final int length ) {
+		values = new long[ length ];
+	}
+	
+	@Override
+	protected Object values( ) {
+		return values;
+	}
+	
+	@Override
+	protected void transferValue( final Object oldvalues, final int from, final int to ) {
+		values[ to ] = ((long[])oldvalues)[ from ];
+	}
+	
+	@Override
+	protected void moveValue( final int from, final int to ) {
+		values[ to ] = values[ from ];
+	}
+	
+	/** @return The entries of the map as {key=value, ...} */
+	@Override
+	public String toString( ) {
+		final StringBuilder sb = new StringBuilder( "{" );
+		forEach( (k, v) -> sb.append( sb.length( ) > 1 ? ", " : "" ).append( k ).append( '=' ).append( v ) );
+		return sb.append( "}" ).toString( );
+	}
+	
+	/**
+	 * Operation that accepts a single entry of the map
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+		/**
+		 * Performs the operation on the entry
+		 * 
+		 * @param key The entry key
+		 * @param value The entry value
+		 */
+		void accept( final long key, final long value );
+	}
+}
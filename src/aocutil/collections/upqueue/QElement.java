@@ -14,11 +14,8 @@ public class QElement<T, V> {
 	/** The value to store */
 	public final V value;
 	
-	/** The next element */
-	protected QElement<T, V> prev;
-	
-	/** The previous element */
-	protected QElement<T, V> next;
+	/** The index of the element in the heap of the queue, -1 if not queued */
+	protected int index;
 	
 	/**
 	 * Creates a new element of the Queue
@@ -29,8 +26,7 @@ public class QElement<T, V> {
 	public QElement( final T key, final V value ) {
 		this.key = key;
 		this.value = value;
-		this.prev = null;
-		this.next = null;
+		this.index = -1;
 	}
 	
 	/** @return The string key=value */ 
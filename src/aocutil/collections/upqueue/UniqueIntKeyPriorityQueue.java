@@ -0,0 +1,246 @@
+package aocutil.collections.upqueue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue of unique, non-negative int keys with primitive long
+ * priorities. If a key is added twice to the queue, its priority will be
+ * updated iff the new priority is lower.
+ * <br/><br/>
+ * Intended for dense integer state ids, e.g. grid cell indices. The queue is
+ * an indexed 4-ary heap that keeps keys and priorities in parallel primitive
+ * arrays and the heap position of every key in an array indexed by key, so
+ * no objects are allocated when priorities are inserted or updated.
+ *
+ * @author Joris
+ */
+public class UniqueIntKeyPriorityQueue {
+	/** The number of children per heap node */
+	private static final int ARITY = 4;
+
+	/** The keys in heap order */
+	private int[] keys;
+
+	/** The priorities in heap order */
+	private long[] prios;
+
+	/** The heap position per key, -1 if the key is not queued */
+	private int[] pos;
+
+	/** The number of keys in the queue */
+	private int size;
+
+	/**
+	 * Creates a new empty queue
+	 *
+	 * @param capacity The expected key range [0, capacity), the queue grows
+	 *   if larger keys are inserted
+	 */
+	public UniqueIntKeyPriorityQueue( final int capacity ) {
+		final int cap = Math.max( capacity, 16 );
+		keys = new int[ cap ];
+		prios = new long[ cap ];
+		pos = new int[ cap ];
+		Arrays.fill( pos, -1 );
+		size = 0;
+	}
+
+	/**
+	 * Inserts a key into the queue. If the key was already present, its
+	 * priority is replaced if the new priority is lower.
+	 *
+	 * @param key The key to insert
+	 * @param priority The priority of the key, lowest first
+	 * @return True if the key was added or its priority was lowered
+	 * @throws IllegalArgumentException if the key is negative
+	 */
+	public boolean insert( final int key, final long priority ) {
+		if( key < 0 ) throw new IllegalArgumentException( "Invalid key: " + key );
+		if( key >= pos.length ) {
+			final int oldlen = pos.length;
+			pos = Arrays.copyOf( pos, Math.max( key + 1, oldlen << 1 ) );
+			Arrays.fill( pos, oldlen, pos.length, -1 );
+		}
+
+		final int idx = pos[key];
+		if( idx >= 0 ) {
+			if( prios[idx] <= priority ) return false;
+			siftUp( key, priority, idx );
+			return true;
+		}
+
+		if( size == keys.length ) {
+			keys = Arrays.copyOf( keys, size << 1 );
+			prios = Arrays.copyOf( prios, size << 1 );
+		}
+		siftUp( key, priority, size++ );
+		return true;
+	}
+
+	/**
+	 * Removes a key from the queue
+	 *
+	 * @param key The key to remove
+	 * @return True if the key was in the queue and has been removed
+	 */
+	public boolean remove( final int key ) {
+		if( !contains( key ) ) return false;
+		removeAt( pos[key] );
+		return true;
+	}
+
+	/**
+	 * Removes and returns the key with the lowest priority
+	 *
+	 * @return The key
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public int poll( ) {
+		if( size == 0 ) throw new NoSuchElementException( );
+		final int key = keys[0];
+		removeAt( 0 );
+		return key;
+	}
+
+	/**
+	 * @return The key with the lowest priority, without removing it
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public int peek( ) {
+		if( size == 0 ) throw new NoSuchElementException( );
+		return keys[0];
+	}
+
+	/**
+	 * @return The lowest priority in the queue
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public long peekPriority( ) {
+		if( size == 0 ) throw new NoSuchElementException( );
+		return prios[0];
+	}
+
+	/**
+	 * Retrieves the current priority of a key
+	 *
+	 * @param key The key
+	 * @return The priority of the key
+	 * @throws NoSuchElementException if the key is not in the queue
+	 */
+	public long getPriority( final int key ) {
+		if( !contains( key ) ) throw new NoSuchElementException( "Key not in queue: " + key );
+		return prios[ pos[key] ];
+	}
+
+	/**
+	 * Checks whether the key is currently in the queue
+	 *
+	 * @param key The key to check
+	 * @return True iff the key is in the queue
+	 */
+	public boolean contains( final int key ) {
+		return key >= 0 && key < pos.length && pos[key] >= 0;
+	}
+
+	/** @return The number of keys in the queue */
+	public int size( ) {
+		return size;
+	}
+
+	/** @return True if the queue is empty */
+	public boolean isEmpty( ) {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all keys from the queue
+	 */
+	public void clear( ) {
+		for( int i = 0; i < size; i++ ) pos[ keys[i] ] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Removes the entry at the given heap position and restores the heap
+	 * property by moving the last entry into the gap
+	 *
+	 * @param idx The heap index of the entry to remove
+	 */
+	private void removeAt( final int idx ) {
+		pos[ keys[idx] ] = -1;
+		size--;
+		if( idx == size ) return;
+
+		final int key = keys[size];
+		final long prio = prios[size];
+		siftDown( key, prio, idx );
+		if( pos[key] == idx ) siftUp( key, prio, idx );
+	}
+
+	/**
+	 * Places an entry at the given position and moves it up the heap while
+	 * its priority is lower than that of its parent
+	 *
+	 * @param key The key to place
+	 * @param prio Its priority
+	 * @param idx The heap index to start from
+	 */
+	private void siftUp( final int key, final long prio, int idx ) {
+		while( idx > 0 ) {
+			final int parent = (idx - 1) / ARITY;
+			if( prios[parent] <= prio ) break;
+			place( keys[parent], prios[parent], idx );
+			idx = parent;
+		}
+		place( key, prio, idx );
+	}
+
+	/**
+	 * Places an entry at the given position and moves it down the heap while
+	 * any of its children has a lower priority
+	 *
+	 * @param key The key to place
+	 * @param prio Its priority
+	 * @param idx The heap index to start from
+	 */
+	private void siftDown( final int key, final long prio, int idx ) {
+		while( true ) {
+			final int first = idx * ARITY + 1;
+			if( first >= size ) break;
+
+			int min = first;
+			final int end = Math.min( first + ARITY, size );
+			for( int c = first + 1; c < end; c++ )
+				if( prios[c] < prios[min] ) min = c;
+
+			if( prio <= prios[min] ) break;
+			place( keys[min], prios[min], idx );
+			idx = min;
+		}
+		place( key, prio, idx );
+	}
+
+	/**
+	 * Stores an entry at the given heap index
+	 *
+	 * @param key The key
+	 * @param prio The priority
+	 * @param idx The heap index
+	 */
+	private void place( final int key, final long prio, final int idx ) {
+		keys[idx] = key;
+		prios[idx] = prio;
+		pos[key] = idx;
+	}
+
+	/** @return The current keys and priorities in heap order */
+	@Override
+	public String toString( ) {
+		if( size == 0 ) return "(empty)";
+
+		final StringBuilder res = new StringBuilder( );
+		for( int i = 0; i < size; i++ ) res.append( i > 0 ? "," : "" ).append( keys[i] ).append( "=" ).append( prios[i] );
+		return res.toString( );
+	}
+}
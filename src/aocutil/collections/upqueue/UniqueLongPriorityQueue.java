@@ -0,0 +1,160 @@
+package aocutil.collections.upqueue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue implementation that only allows unique keys and uses
+ * primitive long priorities. If a key is added twice to the queue, its
+ * priority will be updated iff the new priority is lower.
+ * <br/><br/>
+ * Every key is assigned a dense int id the first time it is inserted and the
+ * ids are queued in a {@link UniqueIntKeyPriorityQueue}. Priorities are thus
+ * never boxed and a key that is re-inserted later on reuses its id.
+ *
+ * @author Joris
+ *
+ * @param <T> The type of the key element that can be queued
+ */
+public class UniqueLongPriorityQueue<T> {
+	/** The ids assigned to the keys */
+	private final Map<T, Integer> ids;
+
+	/** The keys by their id */
+	private final List<T> keys;
+
+	/** The queue of key ids */
+	private final UniqueIntKeyPriorityQueue queue;
+
+	/**
+	 * Creates a new empty queue
+	 */
+	public UniqueLongPriorityQueue( ) {
+		this( 16 );
+	}
+
+	/**
+	 * Creates a new empty queue
+	 *
+	 * @param capacity The expected number of distinct keys
+	 */
+	public UniqueLongPriorityQueue( final int capacity ) {
+		ids = new HashMap<>( );
+		keys = new ArrayList<>( capacity );
+		queue = new UniqueIntKeyPriorityQueue( capacity );
+	}
+
+	/**
+	 * Inserts a key into the queue. If the key was already present, its
+	 * priority is replaced if the new priority is lower.
+	 *
+	 * @param key The key to insert
+	 * @param priority The priority of the key, lowest first
+	 * @return True if the key was added or its priority was lowered
+	 */
+	public boolean insert( final T key, final long priority ) {
+		Integer id = ids.get( key );
+		if( id == null ) {
+			id = keys.size( );
+			ids.put( key, id );
+			keys.add( key );
+		}
+		return queue.insert( id, priority );
+	}
+
+	/**
+	 * Removes a key from the queue
+	 *
+	 * @param key The key to remove
+	 * @return True if the key was in the queue and has been removed
+	 */
+	public boolean remove( final T key ) {
+		final Integer id = ids.get( key );
+		return id != null && queue.remove( id );
+	}
+
+	/**
+	 * Removes and returns the key with the lowest priority
+	 *
+	 * @return The key
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public T poll( ) {
+		return keys.get( queue.poll( ) );
+	}
+
+	/**
+	 * @return The key with the lowest priority, without removing it
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public T peek( ) {
+		return keys.get( queue.peek( ) );
+	}
+
+	/**
+	 * @return The lowest priority in the queue
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public long peekPriority( ) {
+		return queue.peekPriority( );
+	}
+
+	/**
+	 * Retrieves the current priority of a key
+	 *
+	 * @param key The key
+	 * @return The priority of the key
+	 * @throws NoSuchElementException if the key is not in the queue
+	 */
+	public long getPriority( final T key ) {
+		final Integer id = ids.get( key );
+		if( id == null ) throw new NoSuchElementException( "Key not in queue: " + key );
+		return queue.getPriority( id );
+	}
+
+	/**
+	 * Checks whether the key is currently in the queue
+	 *
+	 * @param key The key to check
+	 * @return True iff the key is in the queue
+	 */
+	public boolean contains( final T key ) {
+		final Integer id = ids.get( key );
+		return id != null && queue.contains( id );
+	}
+
+	/** @return The number of keys in the queue */
+	public int size( ) {
+		return queue.size( );
+	}
+
+	/** @return True if the queue is empty */
+	public boolean isEmpty( ) {
+		return queue.isEmpty( );
+	}
+
+	/**
+	 * Removes all keys from the queue and forgets their ids
+	 */
+	public void clear( ) {
+		queue.clear( );
+		ids.clear( );
+		keys.clear( );
+	}
+
+	/** @return The current keys and priorities in order of first insertion */
+	@Override
+	public String toString( ) {
+		if( queue.isEmpty( ) ) return "(empty)";
+
+		final StringBuilder res = new StringBuilder( );
+		for( int i = 0; i < keys.size( ); i++ ) {
+			if( !queue.contains( i ) ) continue;
+			res.append( res.length( ) > 0 ? "," : "" ).append( keys.get( i ) ).append( "=" ).append( queue.getPriority( i ) );
+		}
+		return res.toString( );
+	}
+}
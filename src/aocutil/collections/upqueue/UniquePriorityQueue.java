@@ -1,5 +1,6 @@
 package aocutil.collections.upqueue;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -8,136 +9,215 @@ import java.util.NoSuchElementException;
  * Priority queue implementation that only allows unique keys. If a key is
  * added twice to the queue, its value will be updated iff the value is lower
  * according to the comparator of the value
- * 
+ * <br/><br/>
+ * The queue is implemented as an indexed 4-ary heap. Every element knows its
+ * position in the heap and a map from key to element allows the element of a
+ * key to be found directly, hence insert, decrease-key, remove and poll all
+ * run in O(log n).
+ *
  * @author Joris
  *
  * @param <T> The type of the key element that can be queued
  * @param <V> The type of the values stored for the keys
  */
 public class UniquePriorityQueue<T,V extends Comparable<V>> {
-	/** The head of the queue */
-	private QElement<T, V> head;
-	
-	/** The values for the elements currently in the Queue */
-	private final Map<T, V> values;
-	
+	/** The number of children per heap node */
+	private static final int ARITY = 4;
+
+	/** The heap of elements, the element with the lowest value at index 0 */
+	private QElement<T, V>[] heap;
+
+	/** The number of elements in the heap */
+	private int size;
+
+	/** The elements currently in the queue, indexed by their key */
+	private final Map<T, QElement<T, V>> elements;
+
 	/**
 	 * Creates a new empty PriorityQueue that will only hold unique keys as its
 	 * elements
 	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public UniquePriorityQueue( ) {
-		head = null;
-		values = new HashMap<>( );
+		heap = new QElement[ 16 ];
+		size = 0;
+		elements = new HashMap<>( );
 	}
-	
+
 	/**
 	 * Inserts a single element into the queue. If the element was already
 	 * present, its value will be replaced if the new value is lower according
-	 * to the comparator implemented on the value data type class. 
-	 * 
+	 * to the comparator implemented on the value data type class.
+	 *
 	 * @param key The key to insert
 	 * @param value The value to set for the key
 	 */
 	public void insert( final T key, final V value ) {
-		// first element
-		if( head == null ) {
-			head = new QElement<T,V>( key, value );
-			values.put( key, value );
-			return;
-		}
-		
-		if( values.containsKey( key ) ) {
-			// already a better value in the queue?
-			final V oldvalue = values.get( key );
-			if( oldvalue.compareTo( value ) <= 0 ) return;
-			
-			// no, remove it before adding the new one
-			remove( key );
-		}
-		
-		// set the (new) value for the key
+		final QElement<T, V> old = elements.get( key );
 		final QElement<T, V> elem = new QElement<>( key, value );
-		values.put( key, value );
-		
-		// find the position to insert the new element at
-		QElement<T,V> curr = head;
-		QElement<T,V> last = null;
-		do {
-			last = curr;
-			if( value.compareTo( values.get( curr.key ) ) > 0 ) continue;
-			
-			// insert before this one
-			if( curr.equals( head ) ) head = elem;
-			else curr.prev.next = elem;
-			
-			elem.prev = curr.prev;
-			elem.next = curr;
-			curr.prev = elem;
+
+		if( old != null ) {
+			// already a better value in the queue?
+			if( old.value.compareTo( value ) <= 0 ) return;
+
+			// no, replace it in place and move it up to its new position
+			final int idx = old.index;
+			old.index = -1;
+			elements.put( key, elem );
+			siftUp( elem, idx );
 			return;
-		} while( (curr = curr.next) != null );
-		
-		// not inserted, insert at back of queue
-		last.next = elem;
-		elem.prev = last;
- 
+		}
+
+		// new key, add it at the bottom of the heap
+		if( size == heap.length ) heap = Arrays.copyOf( heap, size << 1 );
+		elements.put( key, elem );
+		siftUp( elem, size++ );
 	}
-	
+
 	/**
 	 * Removes a key from the queue
-	 * 
+	 *
 	 * @param key The key to remove
+	 * @return True if the key was in the queue and has been removed
 	 */
-	public void remove( final T key ) {
-		values.remove( key );
-		QElement<T, V> curr = head;
-		do {
-			if( !curr.equals( key ) ) continue;
-			
-			if( curr.prev == null ) {
-				head = curr.next;
-				head.prev = null;
-			} else {
-				curr.prev.next = curr.next;
-				curr.next.prev = curr.prev;
-			}
-		} while( (curr = curr.next) != null );
+	public boolean remove( final T key ) {
+		final QElement<T, V> elem = elements.remove( key );
+		if( elem == null ) return false;
+		removeAt( elem.index );
+		return true;
 	}
-	
+
 	/**
 	 * Removes and returns the head of the queue
-	 * 
+	 *
 	 * @return The current head
 	 * @throws NoSuchElementException if the queue is empty
 	 */
 	public QElement<T, V> poll( ) {
-		if( size() == 0 ) throw new NoSuchElementException();
-		
-		final QElement<T, V> e = head;
-		values.remove( head.key );
-		head = head.next;
-		if( head != null ) head.prev = null;
+		if( size == 0 ) throw new NoSuchElementException();
+
+		final QElement<T, V> e = heap[0];
+		elements.remove( e.key );
+		removeAt( 0 );
 		return e;
 	}
-	
+
+	/**
+	 * Returns the head of the queue without removing it
+	 *
+	 * @return The current head
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public QElement<T, V> peek( ) {
+		if( size == 0 ) throw new NoSuchElementException();
+		return heap[0];
+	}
+
+	/**
+	 * Checks whether the key is currently in the queue
+	 *
+	 * @param key The key to check
+	 * @return True iff the key is in the queue
+	 */
+	public boolean contains( final T key ) {
+		return elements.containsKey( key );
+	}
+
 	/**
 	 * @return The size of the current queue
 	 */
 	public int size( ) {
-		return values.size( );
+		return size;
 	}
-	
+
+	/**
+	 * @return True if the queue is empty
+	 */
+	public boolean isEmpty( ) {
+		return size == 0;
+	}
+
+	/**
+	 * Removes the element at the given heap position and restores the heap
+	 * property by moving the last element into the gap
+	 *
+	 * @param idx The heap index of the element to remove
+	 */
+	private void removeAt( final int idx ) {
+		heap[idx].index = -1;
+		final QElement<T, V> last = heap[--size];
+		heap[size] = null;
+		if( idx == size ) return;
+
+		siftDown( last, idx );
+		if( last.index == idx ) siftUp( last, idx );
+	}
+
+	/**
+	 * Places an element at the given position and moves it up the heap while
+	 * its value is lower than that of its parent
+	 *
+	 * @param elem The element to place
+	 * @param idx The heap index to start from
+	 */
+	private void siftUp( final QElement<T, V> elem, int idx ) {
+		while( idx > 0 ) {
+			final int parent = (idx - 1) / ARITY;
+			if( heap[parent].value.compareTo( elem.value ) <= 0 ) break;
+			place( heap[parent], idx );
+			idx = parent;
+		}
+		place( elem, idx );
+	}
+
+	/**
+	 * Places an element at the given position and moves it down the heap while
+	 * any of its children has a lower value
+	 *
+	 * @param elem The element to place
+	 * @param idx The heap index to start from
+	 */
+	private void siftDown( final QElement<T, V> elem, int idx ) {
+		while( true ) {
+			final int first = idx * ARITY + 1;
+			if( first >= size ) break;
+
+			// find the child with the lowest value
+			int min = first;
+			final int end = Math.min( first + ARITY, size );
+			for( int c = first + 1; c < end; c++ )
+				if( heap[c].value.compareTo( heap[min].value ) < 0 ) min = c;
+
+			if( elem.value.compareTo( heap[min].value ) <= 0 ) break;
+			place( heap[min], idx );
+			idx = min;
+		}
+		place( elem, idx );
+	}
+
 	/**
-	 * @return The current elements in the queue
+	 * Stores an element at the given heap index
+	 *
+	 * @param elem The element
+	 * @param idx The heap index
+	 */
+	private void place( final QElement<T, V> elem, final int idx ) {
+		heap[idx] = elem;
+		elem.index = idx;
+	}
+
+	/**
+	 * @return The current elements in the queue, in order of their value
 	 */
 	@Override
 	public String toString( ) {
-		if( head == null ) return "(empty)";
+		if( size == 0 ) return "(empty)";
 
-		String res = head.toString( );
-		QElement<T, V> curr = head;
-		while( (curr = curr.next) != null ) {
-			res += "," + curr.toString( );
-		}
-		return res;
+		final QElement<T, V>[] sorted = Arrays.copyOf( heap, size );
+		Arrays.sort( sorted, (a, b) -> a.value.compareTo( b.value ) );
+
+		final StringBuilder res = new StringBuilder( sorted[0].toString( ) );
+		for( int i = 1; i < sorted.length; i++ ) res.append( "," ).append( sorted[i] );
+		return res.toString( );
 	}
 }
@@ -19,6 +19,15 @@ public class Coord2D implements Comparable<Coord2D> {
 	
 	/** The cached hash code, it is immutable */
 	private final int hashcode;
+	
+	/** The default lowest axis value for which canonical instances are cached */
+	public static final int CACHE_MIN = -1024;
+	
+	/** The default highest axis value for which canonical instances are cached */
+	public static final int CACHE_MAX = 4096;
+	
+	/** The table of canonical instances that is used by of( x, y ) */
+	private static volatile Flyweights flyweights = new Flyweights( CACHE_MIN, CACHE_MAX );
 
 	/**
 	 * Creates a new 2D coordinate
@@ -34,6 +43,42 @@ public class Coord2D implements Comparable<Coord2D> {
 		hashcode = toString( ).hashCode( );
 	}
 	
+	/**
+	 * Returns the coordinate (x,y). If both x and y are within the configured
+	 * cache range, the canonical instance of the coordinate is returned so that
+	 * repeated requests for the same position do not allocate new objects.
+	 * Instances outside of the range are created on demand. Note that identity
+	 * of two equal coordinates is not guaranteed, use equals to compare them.
+	 * 
+	 * @param x The horizontal position
+	 * @param y The vertical position
+	 * @return The coordinate (x,y)
+	 */
+	public static Coord2D of( final int x, final int y ) {
+		final Flyweights f = flyweights;
+		if( x < f.min || x > f.max || y < f.min || y > f.max ) return new Coord2D( x, y );
+		
+		// rows of the table are only allocated on first use
+		Coord2D[] row = f.rows[ y - f.min ];
+		if( row == null ) f.rows[ y - f.min ] = row = new Coord2D[ f.max - f.min + 1 ];
+		
+		Coord2D c = row[ x - f.min ];
+		if( c == null ) row[ x - f.min ] = c = new Coord2D( x, y );
+		return c;
+	}
+	
+	/**
+	 * Reconfigures the range of axis values for which of( x, y ) returns
+	 * canonical instances. This discards all currently cached instances. Use a
+	 * max value lower than the min value to disable caching altogether.
+	 * 
+	 * @param min The lowest x and y value to cache
+	 * @param max The highest x and y value to cache
+	 */
+	public static void setCacheRange( final int min, final int max ) {
+		flyweights = new Flyweights( min, max );
+	}
+	
 	/**
 	 * Computes new coordinate when moving using the coordinates of another point
 	 * 
@@ -52,7 +97,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 * @return The new coordinate
 	 */
 	public Coord2D move( final int dx, final int dy ) {
-		return new Coord2D( x + dx, y + dy );
+		return of( x + dx, y + dy );
 	}
 	
 	/**
@@ -96,9 +141,9 @@ public class Coord2D implements Comparable<Coord2D> {
 		final int d = (degrees + 360) % 360;
 		switch( d ) {
 			case 0: return move( 0, 0 );
-			case 90: return new Coord2D( -y, x );
-			case 180: return new Coord2D( -x, -y  );
-			case 270: return new Coord2D( y, -x );
+			case 90: return of( -y, x );
+			case 180: return of( -x, -y  );
+			case 270: return of( y, -x );
 			default: throw new IllegalArgumentException( "Only major directions are supported" );
 		}
 	}
@@ -110,7 +155,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 * @return A new coordinate that represents coord - this
 	 */
 	public Coord2D diff( final Coord2D coord ) {
-		return new Coord2D( coord.x - this.x, coord.y - this.y );
+		return of( coord.x - this.x, coord.y - this.y );
 	}
 	
 	/**
@@ -120,7 +165,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 * @return A new coordinate representing the absolute difference
 	 */
 	public Coord2D diffAbs( final Coord2D coord ) {
-		return new Coord2D( Math.abs( coord.x - this.x ), Math.abs( coord.y - this.y ) );
+		return of( Math.abs( coord.x - this.x ), Math.abs( coord.y - this.y ) );
 	}
 	
 	/**
@@ -130,7 +175,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 * @return The coordinate max(x, coord.x), max(y, coord.y) 
 	 */
 	public Coord2D max( final Coord2D coord ) {
-		return new Coord2D( Math.max( x, coord.x ), Math.max( y, coord.y ) );
+		return of( Math.max( x, coord.x ), Math.max( y, coord.y ) );
 	}
 	
 	/**
@@ -140,7 +185,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 * @return The coordinate min(x, coord.x), min(y, coord.y) 
 	 */
 	public Coord2D min( final Coord2D coord ) {
-		return new Coord2D( Math.min( x, coord.x ), Math.min( y, coord.y ) );
+		return of( Math.min( x, coord.x ), Math.min( y, coord.y ) );
 	}
 	
 	/**
@@ -188,6 +233,7 @@ public class Coord2D implements Comparable<Coord2D> {
 	 */
 	@Override
 	public boolean equals( Object obj ) {
+		if( obj == this ) return true;
 		if( obj == null || !(obj instanceof Coord2D) ) return false;
 		final Coord2D c = (Coord2D)obj;
 		
@@ -219,7 +265,7 @@ public class Coord2D implements Comparable<Coord2D> {
 		final Matcher m = Pattern.compile( "^\\(?\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*\\)?$" ).matcher( coord.trim( ) );
 		if( !m.find( ) ) throw new IllegalArgumentException( "Invalid coordinate: " + coord );
 		
-		return new Coord2D( Integer.parseInt( m.group( 1 ) ), Integer.parseInt( m.group( 2 ) ) );
+		return of( Integer.parseInt( m.group( 1 ) ), Integer.parseInt( m.group( 2 ) ) );
 	}
 	
 	/** @return The (x,y) string describing the position */
@@ -233,4 +279,30 @@ public class Coord2D implements Comparable<Coord2D> {
 	public int hashCode( ) {
 		return hashcode;
 	}
+	
+	/**
+	 * Table of canonical coordinate instances for a square range of axis values
+	 */
+	private static class Flyweights {
+		/** The lowest axis value in the table */
+		protected final int min;
+		
+		/** The highest axis value in the table */
+		protected final int max;
+		
+		/** The cached instances per row, null for rows that have not been used */
+		protected final Coord2D[][] rows;
+		
+		/**
+		 * Creates a new, empty table
+		 * 
+		 * @param min The lowest axis value
+		 * @param max The highest axis value
+		 */
+		protected Flyweights( final int min, final int max ) {
+			this.min = min;
+			this.max = max;
+			this.rows = new Coord2D[ Math.max( max - min + 1, 0 ) ][];
+		}
+	}
 }
@@ -0,0 +1,145 @@
+package aocutil.geometry;
+
+/**
+ * Helper functions to encode 2D and 3D coordinates into a single primitive
+ * long. Packed coordinates can be stored in primitive collections, avoiding
+ * the allocation of a coordinate object per position.
+ * <br/><br/>
+ * 2D coordinates use 32 bits per axis and can therefore hold any int value.
+ * 3D coordinates use 21 bits per axis, which limits the axis values to the
+ * range [-2^20, 2^20 - 1].
+ *
+ * @author Joris
+ */
+public class PackedCoord {
+	/** The lowest axis value that can be packed in a 3D coordinate */
+	public static final int MIN_3D = -(1 << 20);
+
+	/** The highest axis value that can be packed in a 3D coordinate */
+	public static final int MAX_3D = (1 << 20) - 1;
+
+	/** Bit mask of a single 3D axis value */
+	private static final long MASK_3D = (1L << 21) - 1;
+
+	/**
+	 * Packs a 2D position into a long
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The packed coordinate
+	 */
+	public static long pack( final int x, final int y ) {
+		return ((long)x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Packs a 2D coordinate into a long
+	 *
+	 * @param coord The coordinate
+	 * @return The packed coordinate
+	 */
+	public static long pack( final Coord2D coord ) {
+		return pack( coord.x, coord.y );
+	}
+
+	/**
+	 * @param packed The packed 2D coordinate
+	 * @return The x coordinate
+	 */
+	public static int unpackX( final long packed ) {
+		return (int)(packed >> 32);
+	}
+
+	/**
+	 * @param packed The packed 2D coordinate
+	 * @return The y coordinate
+	 */
+	public static int unpackY( final long packed ) {
+		return (int)packed;
+	}
+
+	/**
+	 * Unpacks a packed 2D coordinate
+	 *
+	 * @param packed The packed coordinate
+	 * @return The Coord2D
+	 */
+	public static Coord2D toCoord2D( final long packed ) {
+		return Coord2D.of( unpackX( packed ), unpackY( packed ) );
+	}
+
+	/**
+	 * Moves a packed 2D coordinate without unpacking it into an object
+	 *
+	 * @param packed The packed coordinate
+	 * @param dx The horizontal movement
+	 * @param dy The vertical movement
+	 * @return The packed coordinate of the new position
+	 */
+	public static long move( final long packed, final int dx, final int dy ) {
+		return pack( unpackX( packed ) + dx, unpackY( packed ) + dy );
+	}
+
+	/**
+	 * Packs a 3D position into a long
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 * @return The packed coordinate
+	 * @throws IllegalArgumentException if any of the values is outside the
+	 *   range that can be packed
+	 */
+	public static long pack( final int x, final int y, final int z ) {
+		if( x < MIN_3D || x > MAX_3D || y < MIN_3D || y > MAX_3D || z < MIN_3D || z > MAX_3D )
+			throw new IllegalArgumentException( "Coordinate (" + x + "," + y + "," + z + ") cannot be packed into 21 bits per axis" );
+
+		return ((x & MASK_3D) << 42) | ((y & MASK_3D) << 21) | (z & MASK_3D);
+	}
+
+	/**
+	 * Packs a 3D coordinate into a long
+	 *
+	 * @param coord The coordinate
+	 * @return The packed coordinate
+	 * @throws IllegalArgumentException if any of the values is outside the
+	 *   range that can be packed
+	 */
+	public static long pack( final Coord3D coord ) {
+		return pack( coord.x, coord.y, coord.z );
+	}
+
+	/**
+	 * @param packed The packed 3D coordinate
+	 * @return The x coordinate
+	 */
+	public static int unpackX3D( final long packed ) {
+		return (int)(packed << 1 >> 43);
+	}
+
+	/**
+	 * @param packed The packed 3D coordinate
+	 * @return The y coordinate
+	 */
+	public static int unpackY3D( final long packed ) {
+		return (int)(packed << 22 >> 43);
+	}
+
+	/**
+	 * @param packed The packed 3D coordinate
+	 * @return The z coordinate
+	 */
+	public static int unpackZ3D( final long packed ) {
+		return (int)(packed << 43 >> 43);
+	}
+
+	/**
+	 * Unpacks a packed 3D coordinate
+	 *
+	 * @param packed The packed coordinate
+	 * @return The Coord3D
+	 */
+	public static Coord3D toCoord3D( final long packed ) {
+		return new Coord3D( unpackX3D( packed ), unpackY3D( packed ), unpackZ3D( packed ) );
+	}
+}
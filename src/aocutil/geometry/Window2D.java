@@ -45,8 +45,8 @@ public class Window2D implements Iterable<Coord2D> {
 	 * @param ymax
 	 */
 	public Window2D( final int xmin, final int ymin, final int xmax, final int ymax ) {
-		minCoord = new Coord2D( xmin, ymin );
-		maxCoord = new Coord2D( xmax, ymax );
+		minCoord = Coord2D.of( xmin, ymin );
+		maxCoord = Coord2D.of( xmax, ymax );
 		
 		fixedsize = true;
 	}
@@ -84,8 +84,8 @@ public class Window2D implements Iterable<Coord2D> {
 		}
 		
 		// update bounds if necessary
-		minCoord = new Coord2D( Math.min( minCoord.x, coord.x ), Math.min( minCoord.y, coord.y ) );
-		maxCoord = new Coord2D( Math.max( maxCoord.x, coord.x ), Math.max( maxCoord.y, coord.y ) );
+		minCoord = Coord2D.of( Math.min( minCoord.x, coord.x ), Math.min( minCoord.y, coord.y ) );
+		maxCoord = Coord2D.of( Math.max( maxCoord.x, coord.x ), Math.max( maxCoord.y, coord.y ) );
 	}
 	
 	/**
@@ -111,8 +111,8 @@ public class Window2D implements Iterable<Coord2D> {
 		}
 		
 		// set the new bounds
-		minCoord = new Coord2D( minx, miny );
-		maxCoord = new Coord2D( maxx, maxy );
+		minCoord = Coord2D.of( minx, miny );
+		maxCoord = Coord2D.of( maxx, maxy );
 	}
 	
 	/**
@@ -131,10 +131,22 @@ public class Window2D implements Iterable<Coord2D> {
 	 * @return True iff x in [xmin, xmax] and y in [ymin, ymax]
 	 */
 	public boolean contains( final Coord2D coord ) {
+		return contains( coord.x, coord.y );
+	}
+	
+	/**
+	 * Tests whether the given position is contained by this window, i.e. its
+	 * coordinates are within the min and max values.
+	 * 
+	 * @param x The x coordinate to test
+	 * @param y The y coordinate to test
+	 * @return True iff x in [xmin, xmax] and y in [ymin, ymax]
+	 */
+	public boolean contains( final int x, final int y ) {
 		if( empty( ) ) throw new RuntimeException( "The current window is not defined" );
 		
-		return coord.x >= minCoord.x && coord.y >= minCoord.y &&
-				coord.x <= maxCoord.x && coord.y <= maxCoord.y;
+		return x >= minCoord.x && y >= minCoord.y &&
+				x <= maxCoord.x && y <= maxCoord.y;
 	}
 	
 	/**
@@ -167,7 +179,7 @@ public class Window2D implements Iterable<Coord2D> {
 	 */
 	public Coord2D size( ) {
 		if( empty( ) ) return null;
-		return new Coord2D( maxCoord.x - minCoord.x + 1, maxCoord.y - minCoord.y + 1 );
+		return Coord2D.of( maxCoord.x - minCoord.x + 1, maxCoord.y - minCoord.y + 1 );
 	}
 	
 	/** @return The minimal coordinate values */
@@ -240,7 +252,7 @@ public class Window2D implements Iterable<Coord2D> {
 			@Override
 			public Coord2D next( ) {
 				if( curr.x < end.x ) curr = curr.move( 1, 0 );
-				else curr = new Coord2D( start.x, curr.y + 1 );
+				else curr = Coord2D.of( start.x, curr.y + 1 );
 
 				return curr;
 			}
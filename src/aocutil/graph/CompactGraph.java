@@ -0,0 +1,274 @@
+package aocutil.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable, index-based view of a {@link Graph}. Nodes are numbered 0 to n-1
+ * and the adjacency is stored in compressed sparse row (CSR) form: the arcs
+ * leaving node u are the indices firstArc( u ) up to (exclusive) endArc( u )
+ * of flat arrays that hold the arc targets and weights.
+ * <br/><br/>
+ * An undirected edge is represented by two arcs, one in each direction, an
+ * arc by a single one. Every arc refers back to the Edge it originates from.
+ * Iterating the neighbours of a node only reads consecutive array elements
+ * and allocates nothing.
+ *
+ * @author Joris
+ */
+public class CompactGraph {
+	/** The nodes by index */
+	protected final Node[] nodes;
+
+	/** The index of every node */
+	protected final Map<Node, Integer> index;
+
+	/** The first arc of every node, offsets[n] is the total number of arcs */
+	protected final int[] offsets;
+
+	/** The target node of every arc */
+	protected final int[] targets;
+
+	/** The weight of every arc */
+	protected final int[] weights;
+
+	/** The index of the edge every arc originates from */
+	protected final int[] arcEdges;
+
+	/** The edges of the original graph */
+	protected final Edge[] edges;
+
+	/**
+	 * Creates a new compact graph from its arrays
+	 *
+	 * @param nodes The nodes by index
+	 * @param index The node index map
+	 * @param offsets The arc offsets per node
+	 * @param targets The arc targets
+	 * @param weights The arc weights
+	 * @param arcEdges The edge index per arc
+	 * @param edges The edges
+	 */
+	private CompactGraph( final Node[] nodes, final Map<Node, Integer> index, final int[] offsets, final int[] targets, final int[] weights, final int[] arcEdges, final Edge[] edges ) {
+		this.nodes = nodes;
+		this.index = index;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.arcEdges = arcEdges;
+		this.edges = edges;
+	}
+
+	/**
+	 * Builds the compact representation of a graph, using the edge weights as
+	 * arc weights
+	 *
+	 * @param graph The graph
+	 * @return The compact graph
+	 */
+	public static CompactGraph fromGraph( final Graph graph ) {
+		return fromGraph( graph, Edge::getWeight );
+	}
+
+	/**
+	 * Builds the compact representation of a graph
+	 *
+	 * @param graph The graph
+	 * @param weightfunc The function that determines the weight of the arcs of
+	 *   an edge
+	 * @return The compact graph
+	 * @throws IllegalStateException if an edge connects a node that is not in
+	 *   the graph
+	 */
+	public static CompactGraph fromGraph( final Graph graph, final ToIntFunction<Edge> weightfunc ) {
+		// number the nodes
+		final Node[] nodes = graph.getNodes( ).toArray( new Node[ 0 ] );
+		final Map<Node, Integer> index = new HashMap<>( nodes.length * 2 );
+		for( int i = 0; i < nodes.length; i++ ) index.put( nodes[i], i );
+
+		// count the out-degree of every node
+		final Edge[] edges = graph.getEdges( ).toArray( new Edge[ 0 ] );
+		final int[] offsets = new int[ nodes.length + 1 ];
+		for( final Edge e : edges ) {
+			final int from = nodeIndex( index, e, e.from ), to = nodeIndex( index, e, e.to );
+			offsets[from + 1]++;
+			if( !e.directional && from != to ) offsets[to + 1]++;
+		}
+		for( int i = 0; i < nodes.length; i++ ) offsets[i + 1] += offsets[i];
+
+		// and fill the arc arrays
+		final int arcs = offsets[ nodes.length ];
+		final int[] targets = new int[ arcs ];
+		final int[] weights = new int[ arcs ];
+		final int[] arcEdges = new int[ arcs ];
+		final int[] fill = new int[ nodes.length ];
+		System.arraycopy( offsets, 0, fill, 0, nodes.length );
+		for( int i = 0; i < edges.length; i++ ) {
+			final Edge e = edges[i];
+			final int from = nodeIndex( index, e, e.from ), to = nodeIndex( index, e, e.to );
+			final int w = weightfunc.applyAsInt( e );
+
+			int a = fill[from]++;
+			targets[a] = to; weights[a] = w; arcEdges[a] = i;
+			if( !e.directional && from != to ) {
+				a = fill[to]++;
+				targets[a] = from; weights[a] = w; arcEdges[a] = i;
+			}
+		}
+
+		return new CompactGraph( nodes, index, offsets, targets, weights, arcEdges, edges );
+	}
+
+	/**
+	 * Looks up the index of an edge end point
+	 *
+	 * @param index The node index map
+	 * @param edge The edge
+	 * @param node The end point of the edge
+	 * @return The index of the node
+	 * @throws IllegalStateException if the node is not in the index, i.e. the
+	 *   edge was added without adding its nodes to the graph
+	 */
+	static int nodeIndex( final Map<Node, Integer> index, final Edge edge, final Node node ) {
+		final Integer idx = index.get( node );
+		if( idx == null ) throw new IllegalStateException( "Edge " + edge + " connects node " + node + " that is not in the graph" );
+		return idx;
+	}
+
+	/**
+	 * Creates the transposed graph, in which the direction of every arc is
+	 * reversed. The transposed graph shares the node numbering and edges.
+	 *
+	 * @return The transposed graph
+	 */
+	public CompactGraph transpose( ) {
+		final int n = nodes.length;
+		final int[] toffsets = new int[ n + 1 ];
+		for( final int t : targets ) toffsets[t + 1]++;
+		for( int i = 0; i < n; i++ ) toffsets[i + 1] += toffsets[i];
+
+		final int[] ttargets = new int[ targets.length ];
+		final int[] tweights = new int[ targets.length ];
+		final int[] tedges = new int[ targets.length ];
+		final int[] fill = new int[ n ];
+		System.arraycopy( toffsets, 0, fill, 0, n );
+		for( int u = 0; u < n; u++ ) {
+			for( int a = offsets[u]; a < offsets[u + 1]; a++ ) {
+				final int b = fill[ targets[a] ]++;
+				ttargets[b] = u; tweights[b] = weights[a]; tedges[b] = arcEdges[a];
+			}
+		}
+		return new CompactGraph( nodes, index, toffsets, ttargets, tweights, tedges, edges );
+	}
+
+	/** @return The number of nodes */
+	public int size( ) {
+		return nodes.length;
+	}
+
+	/** @return The total number of arcs */
+	public int arcCount( ) {
+		return targets.length;
+	}
+
+	/** @return The number of edges of the original graph */
+	public int edgeCount( ) {
+		return edges.length;
+	}
+
+	/**
+	 * @param node The node index
+	 * @return The node
+	 */
+	public Node getNode( final int node ) {
+		return nodes[node];
+	}
+
+	/**
+	 * Finds the index of a node
+	 *
+	 * @param node The node
+	 * @return The index of the node
+	 * @throws NoSuchElementException if the node is not in the graph
+	 */
+	public int indexOf( final Node node ) {
+		final Integer idx = index.get( node );
+		if( idx == null ) throw new NoSuchElementException( "Node " + node + " not in the graph" );
+		return idx;
+	}
+
+	/**
+	 * @param node The node index
+	 * @return The number of arcs leaving the node
+	 */
+	public int degree( final int node ) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @param node The node index
+	 * @return The index of the first arc leaving the node
+	 */
+	public int firstArc( final int node ) {
+		return offsets[node];
+	}
+
+	/**
+	 * @param node The node index
+	 * @return The index just beyond the last arc leaving the node
+	 */
+	public int endArc( final int node ) {
+		return offsets[node + 1];
+	}
+
+	/**
+	 * @param arc The arc index
+	 * @return The index of the node the arc points to
+	 */
+	public int target( final int arc ) {
+		return targets[arc];
+	}
+
+	/**
+	 * @param arc The arc index
+	 * @return The weight of the arc
+	 */
+	public int weight( final int arc ) {
+		return weights[arc];
+	}
+
+	/**
+	 * @param arc The arc index
+	 * @return The index of the edge the arc originates from
+	 */
+	public int edgeIndex( final int arc ) {
+		return arcEdges[arc];
+	}
+
+	/**
+	 * @param arc The arc index
+	 * @return The edge the arc originates from
+	 */
+	public Edge getEdge( final int arc ) {
+		return edges[ arcEdges[arc] ];
+	}
+
+	/**
+	 * Performs the action for the target of every arc that leaves the node
+	 *
+	 * @param node The node index
+	 * @param action The action that accepts the index of every neighbour
+	 */
+	public void forEachNeighbour( final int node, final IntConsumer action ) {
+		for( int a = offsets[node]; a < offsets[node + 1]; a++ ) action.accept( targets[a] );
+	}
+
+	/** @return The number of nodes and arcs */
+	@Override
+	public String toString( ) {
+		return "CompactGraph [nodes: " + nodes.length + ", arcs: " + targets.length + "]";
+	}
+}
@@ -0,0 +1,159 @@
+package aocutil.graph;
+
+import java.util.Arrays;
+
+/**
+ * Linear-time connectivity algorithms over the index-based
+ * {@link CompactGraph} view of a graph: strongly connected components,
+ * topological ordering and cycle detection. All algorithms are iterative, so
+ * they do not overflow the call stack on large graphs, and only allocate a
+ * fixed number of int arrays per run.
+ *
+ * @author Joris
+ */
+public class Connectivity {
+	/**
+	 * Determines the strongly connected components using Tarjan's algorithm.
+	 * Components are numbered in reverse topological order of the component
+	 * graph: if there is an arc from component a to component b, then a > b.
+	 *
+	 * @param graph The graph
+	 * @return The component number of every node
+	 */
+	public static int[] stronglyConnectedComponents( final CompactGraph graph ) {
+		final int n = graph.size( );
+		final int[] index = new int[ n ];
+		final int[] low = new int[ n ];
+		final int[] comp = new int[ n ];
+		Arrays.fill( index, -1 );
+
+		// the Tarjan stack of visited nodes that are not yet assigned a component
+		final int[] stack = new int[ n ];
+		final boolean[] onstack = new boolean[ n ];
+		int sp = 0;
+
+		// the DFS call stack: the node and the next arc to explore
+		final int[] callnode = new int[ n ];
+		final int[] callarc = new int[ n ];
+		int cp = 0;
+
+		int counter = 0, components = 0;
+		for( int s = 0; s < n; s++ ) {
+			if( index[s] >= 0 ) continue;
+
+			index[s] = low[s] = counter++;
+			stack[sp++] = s; onstack[s] = true;
+			callnode[cp] = s; callarc[cp++] = graph.firstArc( s );
+
+			while( cp > 0 ) {
+				final int u = callnode[cp - 1];
+				if( callarc[cp - 1] < graph.endArc( u ) ) {
+					final int v = graph.target( callarc[cp - 1]++ );
+					if( index[v] < 0 ) {
+						// descend into v
+						index[v] = low[v] = counter++;
+						stack[sp++] = v; onstack[v] = true;
+						callnode[cp] = v; callarc[cp++] = graph.firstArc( v );
+					} else if( onstack[v] ) {
+						low[u] = Math.min( low[u], index[v] );
+					}
+					continue;
+				}
+
+				// all arcs explored, pop u and pass its low link to the caller
+				cp--;
+				if( cp > 0 ) {
+					final int p = callnode[cp - 1];
+					low[p] = Math.min( low[p], low[u] );
+				}
+
+				// u is the root of a component?
+				if( low[u] == index[u] ) {
+					int v;
+					do {
+						v = stack[--sp];
+						onstack[v] = false;
+						comp[v] = components;
+					} while( v != u );
+					components++;
+				}
+			}
+		}
+		return comp;
+	}
+
+	/**
+	 * Determines a topological order of the nodes using Kahn's algorithm.
+	 * Every node appears before all nodes it has an arc to.
+	 *
+	 * @param graph The graph
+	 * @return The node indices in topological order
+	 * @throws RuntimeException if the graph contains a cycle
+	 */
+	public static int[] topologicalOrder( final CompactGraph graph ) {
+		final int n = graph.size( );
+		final int[] indegree = new int[ n ];
+		for( int a = 0; a < graph.arcCount( ); a++ ) indegree[ graph.target( a ) ]++;
+
+		// the order array doubles as the queue of nodes without incoming arcs
+		final int[] order = new int[ n ];
+		int tail = 0;
+		for( int u = 0; u < n; u++ ) if( indegree[u] == 0 ) order[tail++] = u;
+
+		for( int head = 0; head < tail; head++ ) {
+			final int u = order[head];
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				if( --indegree[v] == 0 ) order[tail++] = v;
+			}
+		}
+
+		if( tail < n ) throw new RuntimeException( "Graph contains a cycle, only " + tail + " of " + n + " nodes could be ordered" );
+		return order;
+	}
+
+	/**
+	 * Finds a directed cycle in the graph using a depth-first search
+	 *
+	 * @param graph The graph
+	 * @return The node indices of a cycle in order of traversal, the arc from
+	 *   the last node back to the first closes the cycle. Empty if the graph is
+	 *   acyclic.
+	 */
+	public static int[] findCycle( final CompactGraph graph ) {
+		final int n = graph.size( );
+
+		// 0 = unvisited, 1 = on the DFS path, 2 = done
+		final byte[] state = new byte[ n ];
+		final int[] callnode = new int[ n ];
+		final int[] callarc = new int[ n ];
+
+		for( int s = 0; s < n; s++ ) {
+			if( state[s] != 0 ) continue;
+
+			int cp = 0;
+			state[s] = 1;
+			callnode[cp] = s; callarc[cp++] = graph.firstArc( s );
+			while( cp > 0 ) {
+				final int u = callnode[cp - 1];
+				if( callarc[cp - 1] == graph.endArc( u ) ) {
+					state[u] = 2;
+					cp--;
+					continue;
+				}
+
+				final int v = graph.target( callarc[cp - 1]++ );
+				if( state[v] == 0 ) {
+					state[v] = 1;
+					callnode[cp] = v; callarc[cp++] = graph.firstArc( v );
+				} else if( state[v] == 1 ) {
+					// back arc, the cycle is the part of the DFS path from v to u
+					int start = cp - 1;
+					while( callnode[start] != v ) start--;
+					return Arrays.copyOfRange( callnode, start, cp );
+				}
+			}
+		}
+		return new int[ 0 ];
+	}
+}
@@ -0,0 +1,98 @@
+package aocutil.graph;
+
+import aocutil.collections.LabelMatrix;
+
+/**
+ * All-pairs distance table over the nodes of a {@link CompactGraph}, stored
+ * as a primitive matrix indexed by node index
+ *
+ * @author Joris
+ */
+public class DistanceMatrix {
+	/** The distance value of a node pair that has no path */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	/** The graph the distances are computed on */
+	protected final CompactGraph graph;
+
+	/** The distances, dist[from][to] */
+	protected final long[][] dist;
+
+	/**
+	 * Creates a new distance matrix
+	 *
+	 * @param graph The graph
+	 * @param dist The distances by node index
+	 */
+	protected DistanceMatrix( final CompactGraph graph, final long[][] dist ) {
+		this.graph = graph;
+		this.dist = dist;
+	}
+
+	/** @return The number of nodes */
+	public int size( ) {
+		return dist.length;
+	}
+
+	/**
+	 * @param from The index of the source node
+	 * @param to The index of the target node
+	 * @return The shortest distance, UNREACHABLE if there is no path
+	 */
+	public long get( final int from, final int to ) {
+		return dist[from][to];
+	}
+
+	/**
+	 * @param from The source node
+	 * @param to The target node
+	 * @return The shortest distance, UNREACHABLE if there is no path
+	 */
+	public long get( final Node from, final Node to ) {
+		return dist[ graph.indexOf( from ) ][ graph.indexOf( to ) ];
+	}
+
+	/**
+	 * @param from The index of the source node
+	 * @param to The index of the target node
+	 * @return True if there is a path from source to target
+	 */
+	public boolean isReachable( final int from, final int to ) {
+		return dist[from][to] != UNREACHABLE;
+	}
+
+	/**
+	 * @param from The index of the source node
+	 * @return The distances from the source to all nodes, by node index. The
+	 *   array is shared with the matrix and should not be modified.
+	 */
+	public long[] getRow( final int from ) {
+		return dist[from];
+	}
+
+	/**
+	 * Converts the distances into a label matrix over the nodes. Only node
+	 * pairs that are connected by a path are included.
+	 *
+	 * @return The label matrix
+	 */
+	public LabelMatrix<Node, Long> toLabelMatrix( ) {
+		final LabelMatrix<Node, Long> matrix = new LabelMatrix<>( );
+		for( int i = 0; i < dist.length; i++ )
+			for( int j = 0; j < dist.length; j++ )
+				if( dist[i][j] != UNREACHABLE ) matrix.set( graph.getNode( i ), graph.getNode( j ), dist[i][j] );
+		return matrix;
+	}
+
+	/** @return The matrix as string, one row per line */
+	@Override
+	public String toString( ) {
+		final StringBuilder sb = new StringBuilder( );
+		for( int i = 0; i < dist.length; i++ ) {
+			sb.append( graph.getNode( i ) ).append( ":" );
+			for( final long d : dist[i] ) sb.append( " " ).append( d == UNREACHABLE ? "-" : "" + d );
+			sb.append( "\n" );
+		}
+		return sb.toString( );
+	}
+}
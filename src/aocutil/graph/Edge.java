@@ -103,10 +103,10 @@ public class Edge {
 	}
 	
 	/**
-	 * @return The hash code of its String representation
+	 * @return The hash code of the nodes and weight, consistent with equals
 	 */
 	@Override
 	public int hashCode( ) {
-		return toString( ).hashCode( );
+		return 31 * (31 * from.hashCode( ) + to.hashCode( )) + weight;
 	}
 }
@@ -0,0 +1,225 @@
+package aocutil.graph;
+
+import java.util.Arrays;
+
+import aocutil.collections.LongLongHashMap;
+import aocutil.collections.upqueue.UniqueIntKeyPriorityQueue;
+
+/**
+ * Maximum flow and minimum cut algorithms over the index-based
+ * {@link CompactGraph} view of a graph. The arc weights are used as
+ * capacities and must be non-negative; an undirected edge can carry flow in
+ * both directions up to its weight.
+ * <br/><br/>
+ * Note that the default {@link Edge} weight is zero, so for unweighted graphs
+ * the compact graph should be built with a unit weight function, e.g.
+ * CompactGraph.fromGraph( graph, e -> 1 ).
+ *
+ * @author Joris
+ */
+public class Flows {
+	/**
+	 * Computes a maximum flow from source to sink using Dinic's algorithm, in
+	 * O(n^2 m) time and considerably faster on unit-capacity graphs. The
+	 * resulting cut is a minimum source-sink cut: its source side contains all
+	 * nodes that are reachable from the source in the final residual graph.
+	 *
+	 * @param graph The graph
+	 * @param source The index of the source node
+	 * @param sink The index of the sink node
+	 * @return The minimum cut, its value equals the maximum flow
+	 * @throws IllegalArgumentException if source and sink are the same node or
+	 *   an arc has a negative capacity
+	 */
+	public static GraphCut maxFlow( final CompactGraph graph, final int source, final int sink ) {
+		if( source == sink ) throw new IllegalArgumentException( "Source and sink must be different nodes" );
+		final int n = graph.size( );
+
+		// build the residual graph, residual arc r^1 is the reverse of arc r
+		final int[] head = new int[ n ];
+		final int[] next = new int[ 2 * graph.arcCount( ) ];
+		final int[] to = new int[ next.length ];
+		final long[] cap = new long[ next.length ];
+		Arrays.fill( head, -1 );
+		int arcs = 0;
+		for( int u = 0; u < n; u++ ) {
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				if( graph.weight( a ) < 0 ) throw new IllegalArgumentException( "Negative capacity " + graph.weight( a ) + " on " + graph.getEdge( a ) );
+				if( u == v ) continue;
+
+				to[arcs] = v; cap[arcs] = graph.weight( a ); next[arcs] = head[u]; head[u] = arcs++;
+				to[arcs] = u; cap[arcs] = 0; next[arcs] = head[v]; head[v] = arcs++;
+			}
+		}
+
+		final int[] level = new int[ n ];
+		final int[] queue = new int[ n ];
+		final int[] current = new int[ n ];
+		final int[] path = new int[ n ];
+		long flow = 0;
+		while( true ) {
+			// build the level graph by a breadth-first search from the source
+			Arrays.fill( level, -1 );
+			level[source] = 0;
+			queue[0] = source;
+			for( int qh = 0, qt = 1; qh < qt; qh++ ) {
+				final int u = queue[qh];
+				for( int r = head[u]; r >= 0; r = next[r] )
+					if( cap[r] > 0 && level[ to[r] ] < 0 ) {
+						level[ to[r] ] = level[u] + 1;
+						queue[qt++] = to[r];
+					}
+			}
+			if( level[sink] < 0 ) break;
+
+			// find a blocking flow by repeated depth-first searches along the
+			// level graph, current[u] is the next residual arc of u to try
+			System.arraycopy( head, 0, current, 0, n );
+			int depth = 0, u = source;
+			while( true ) {
+				if( u == sink ) {
+					// augment along the path and retreat to its first saturated arc
+					long f = Long.MAX_VALUE;
+					for( int i = 0; i < depth; i++ ) f = Math.min( f, cap[ path[i] ] );
+					for( int i = 0; i < depth; i++ ) {
+						cap[ path[i] ] -= f;
+						cap[ path[i] ^ 1 ] += f;
+					}
+					flow += f;
+
+					int i = 0;
+					while( cap[ path[i] ] > 0 ) i++;
+					depth = i;
+					u = depth == 0 ? source : to[ path[depth - 1] ];
+					continue;
+				}
+
+				// try to advance along an arc of the level graph
+				int r = current[u];
+				while( r >= 0 && (cap[r] == 0 || level[ to[r] ] != level[u] + 1) ) r = next[r];
+				current[u] = r;
+				if( r >= 0 ) {
+					path[depth++] = r;
+					u = to[r];
+					continue;
+				}
+
+				// dead end, remove u from the level graph and retreat
+				if( u == source ) break;
+				level[u] = -1;
+				depth--;
+				u = depth == 0 ? source : to[ path[depth - 1] ];
+				current[u] = next[ current[u] ];
+			}
+		}
+
+		// the last search could not reach the sink, so its levels mark the
+		// source side of a minimum cut
+		final boolean[] side = new boolean[ n ];
+		for( int i = 0; i < n; i++ ) side[i] = level[i] >= 0;
+		return new GraphCut( graph, flow, side, true );
+	}
+
+	/**
+	 * Computes a maximum flow from source to sink node using Dinic's algorithm
+	 *
+	 * @param graph The graph
+	 * @param source The source node
+	 * @param sink The sink node
+	 * @return The minimum cut, its value equals the maximum flow
+	 * @throws IllegalArgumentException if source and sink are the same node or
+	 *   an arc has a negative capacity
+	 */
+	public static GraphCut maxFlow( final CompactGraph graph, final Node source, final Node sink ) {
+		return maxFlow( graph, graph.indexOf( source ), graph.indexOf( sink ) );
+	}
+
+	/**
+	 * Computes a global minimum cut using the Stoer-Wagner algorithm: the cut
+	 * of minimal total weight that splits the nodes into two non-empty sides.
+	 * The graph is treated as undirected, the weights of parallel arcs and
+	 * edges add up. Every phase orders the remaining nodes by maximum adjacency
+	 * and then merges the last two, giving O(n (m + n log n)) time in total.
+	 *
+	 * @param graph The graph
+	 * @return The minimum cut. If the graph is not connected, this is a cut of
+	 *   value zero.
+	 * @throws IllegalArgumentException if the graph has less than two nodes or
+	 *   an arc has a negative weight
+	 */
+	public static GraphCut minCut( final CompactGraph graph ) {
+		final int n = graph.size( );
+		if( n < 2 ) throw new IllegalArgumentException( "A cut requires at least two nodes" );
+
+		// the undirected weight between every pair of adjacent (merged) nodes,
+		// counting every edge only once
+		final LongLongHashMap[] adj = new LongLongHashMap[ n ];
+		for( int u = 0; u < n; u++ ) adj[u] = new LongLongHashMap( graph.degree( u ) );
+		final boolean[] seen = new boolean[ graph.edgeCount( ) ];
+		for( int u = 0; u < n; u++ ) {
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				if( graph.weight( a ) < 0 ) throw new IllegalArgumentException( "Negative weight " + graph.weight( a ) + " on " + graph.getEdge( a ) );
+				if( u == v || seen[ graph.edgeIndex( a ) ] ) continue;
+				seen[ graph.edgeIndex( a ) ] = true;
+				adj[u].add( v, graph.weight( a ) );
+				adj[v].add( u, graph.weight( a ) );
+			}
+		}
+
+		// the remaining nodes and, as linked lists, the original nodes that
+		// have been merged into each of them
+		final int[] active = new int[ n ];
+		final int[] member = new int[ n ];
+		final int[] last = new int[ n ];
+		for( int i = 0; i < n; i++ ) {
+			active[i] = i;
+			member[i] = -1;
+			last[i] = i;
+		}
+
+		final UniqueIntKeyPriorityQueue queue = new UniqueIntKeyPriorityQueue( n );
+		final boolean[] best = new boolean[ n ];
+		long bestvalue = Long.MAX_VALUE;
+		for( int remaining = n; remaining > 1; remaining-- ) {
+			// order the nodes by maximum adjacency to the nodes before them, the
+			// queue is a min-queue so it holds negated connection weights
+			for( int i = 0; i < remaining; i++ ) queue.insert( active[i], 0 );
+			int s = -1, t = -1;
+			long cutvalue = 0;
+			while( !queue.isEmpty( ) ) {
+				cutvalue = -queue.peekPriority( );
+				s = t;
+				t = queue.poll( );
+				adj[t].forEach( (v, w) -> {
+					if( queue.contains( (int)v ) ) queue.insert( (int)v, queue.getPriority( (int)v ) - w );
+				} );
+			}
+
+			// the cut that separates the last node from all others
+			if( cutvalue < bestvalue ) {
+				bestvalue = cutvalue;
+				Arrays.fill( best, false );
+				for( int i = t; i >= 0; i = member[i] ) best[i] = true;
+			}
+
+			// merge t into s
+			final int ms = s, mt = t;
+			adj[t].forEach( (v, w) -> {
+				if( v == ms ) return;
+				adj[ms].add( v, w );
+				adj[(int)v].add( ms, w );
+				adj[(int)v].remove( mt );
+			} );
+			adj[s].remove( t );
+			adj[t] = null;
+			member[ last[s] ] = t;
+			last[s] = last[t];
+			for( int i = 0; i < remaining; i++ )
+				if( active[i] == t ) { active[i] = active[remaining - 1]; break; }
+		}
+
+		return new GraphCut( graph, bestvalue, best, false );
+	}
+}
@@ -4,31 +4,36 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import aocutil.collections.DisjointSet;
+
 /**
  * Container for a node based graph
  * 
  * @author Joris
  */
 public class Graph {
+	/** The pattern of a single edge in the string representation of a graph */
+	private static final Pattern EDGE_PATTERN = Pattern.compile( "^(\\w+)\\s*-\\s*(\\w+)$" );
+	
 	/** The node set, indexed by node label */
 	protected final Map<String, Node> nodes;
 	
-	/** The edge set */
-	protected final List<Edge> edges;
+	/** The edge set, hash-indexed for constant time lookups but iterated in order of insertion */
+	protected final Set<Edge> edges;
 	
 	/**
 	 * Creates a new, empty Graph of nodes that is undirected
 	 */
 	public Graph( ) {
 		nodes = new HashMap<String, Node>( );
-		edges = new ArrayList<Edge>( );
+		edges = new LinkedHashSet<Edge>( );
 	}
 	
 	/**
@@ -36,6 +41,7 @@ public class Graph {
 	 * 
 	 * @param nodelabel The node to add by label
 	 * @return The node
+	 * @throws IllegalArgumentException if the label is null or empty
 	 */
 	public Node addNode( final String nodelabel ) {
 		Node node = this.getNode( nodelabel );
@@ -78,9 +84,9 @@ public class Graph {
 	public int size() { return nodes.size( ); }
 	
 	/**
-	 * @return List of edges
+	 * @return The edges in order of insertion
 	 */
-	public List<Edge> getEdges( ) {
+	public Collection<Edge> getEdges( ) {
 		return edges;
 	}
 	
@@ -92,10 +98,8 @@ public class Graph {
 	 * @return False if the edge was already in the list
 	 */
 	public boolean addEdge( final Edge edge ) {
-		if( edges.contains( edge ) ) return false;
-		
-		// add the edge and its nodes
-		edges.add( edge );
+		// add the edge, if not already present
+		if( !edges.add( edge ) ) return false;
 		
 		// make sure nodes also know of the arc
 		edge.from.addEdge( edge );
@@ -110,10 +114,8 @@ public class Graph {
 	 * @return True if the edge was removed, false otherwise
 	 */
 	public boolean removeEdge( final Edge edge ) {
-		if( !edges.contains( edge ) ) return false;
-		
-		// remove the edge
-		edges.remove( edge );
+		// remove the edge, if present
+		if( !edges.remove( edge ) ) return false;
 		
 		// disconnect the nodes
 		edge.from.removeEdge( edge );
@@ -147,45 +149,136 @@ public class Graph {
 		}
 	}
 	
+	/**
+	 * Determines the strongly connected components of the graph, i.e. the
+	 * maximal sets of nodes that can all reach each other. Undirected edges can
+	 * be traversed both ways.
+	 * 
+	 * @return The components in reverse topological order, i.e. no component
+	 *   has an arc to a component that comes after it
+	 */
+	public List<List<Node>> getStronglyConnectedComponents( ) {
+		final CompactGraph cg = CompactGraph.fromGraph( this );
+		final int[] comp = Connectivity.stronglyConnectedComponents( cg );
+		
+		final List<List<Node>> components = new ArrayList<>( );
+		for( int i = 0; i < comp.length; i++ ) {
+			while( components.size( ) <= comp[i] ) components.add( new ArrayList<>( ) );
+			components.get( comp[i] ).add( cg.getNode( i ) );
+		}
+		return components;
+	}
+	
+	/**
+	 * Determines a topological order of the nodes, in which every node comes
+	 * before all of its successors. Only graphs of which all edges are arcs
+	 * can be ordered, as every undirected edge forms a cycle of two nodes.
+	 * 
+	 * @return The nodes in topological order
+	 * @throws IllegalStateException if the graph contains an undirected edge
+	 * @throws RuntimeException if the graph contains a cycle
+	 */
+	public List<Node> getTopologicalOrder( ) {
+		for( final Edge e : edges )
+			if( !e.directional ) throw new IllegalStateException( "Cannot order a graph with undirected edge " + e );
+		
+		final CompactGraph cg = CompactGraph.fromGraph( this );
+		return toNodes( cg, Connectivity.topologicalOrder( cg ) );
+	}
+	
+	/**
+	 * Finds a cycle in the graph. Note that every undirected edge forms a cycle
+	 * of two nodes.
+	 * 
+	 * @return The nodes of the cycle in order of traversal, the first node
+	 *   follows the last one. An empty list if the graph is acyclic.
+	 */
+	public List<Node> findCycle( ) {
+		final CompactGraph cg = CompactGraph.fromGraph( this );
+		return toNodes( cg, Connectivity.findCycle( cg ) );
+	}
+	
+	/**
+	 * Checks whether the graph contains no directed cycles. Note that every
+	 * undirected edge forms a cycle of two nodes, so only graphs of which all
+	 * edges are arcs can be acyclic.
+	 * 
+	 * @return True if the graph contains no cycles
+	 */
+	public boolean isAcyclic( ) {
+		return Connectivity.findCycle( CompactGraph.fromGraph( this ) ).length == 0;
+	}
+
+	/**
+	 * Computes the maximum flow between two nodes
+	 *
+	 * @param source The source node
+	 * @param sink The sink node
+	 * @param unitweights True to give every edge capacity 1, false to use the
+	 *   edge weights as capacities
+	 * @return The minimum source-sink cut, its value is the maximum flow
+	 */
+	public GraphCut getMaxFlow( final Node source, final Node sink, final boolean unitweights ) {
+		final CompactGraph cg = unitweights ? CompactGraph.fromGraph( this, e -> 1 ) : CompactGraph.fromGraph( this );
+		return Flows.maxFlow( cg, source, sink );
+	}
+
+	/**
+	 * Computes the global minimum cut of the graph, ignoring edge directions
+	 *
+	 * @param unitweights True to give every edge weight 1, false to use the
+	 *   edge weights
+	 * @return The minimum cut
+	 */
+	public GraphCut getMinCut( final boolean unitweights ) {
+		return Flows.minCut( unitweights ? CompactGraph.fromGraph( this, e -> 1 ) : CompactGraph.fromGraph( this ) );
+	}
+
+	/**
+	 * Converts an array of node indices into the list of nodes
+	 * 
+	 * @param cg The compact graph the indices refer to
+	 * @param indices The node indices
+	 * @return The list of nodes
+	 */
+	private static List<Node> toNodes( final CompactGraph cg, final int[] indices ) {
+		final List<Node> result = new ArrayList<>( indices.length );
+		for( final int i : indices ) result.add( cg.getNode( i ) );
+		return result;
+	}
+	
 	/**
 	 * Returns all isolated subgraphs of this graph, i.e. the cliques of nodes
-	 * such that no node outside the clique is connected to it
+	 * such that no node outside the clique is connected to it. The direction of
+	 * arcs is ignored when determining connectivity.
+	 * <br/><br/>
+	 * The subgraphs share the Node and Edge objects of this graph, modifying the
+	 * edges of a subgraph therefore also modifies this graph.
 	 * 
 	 * @return The list of subgraph, potentially containing the original graph
 	 *   only (if it is a clique) 
+	 * @throws IllegalStateException if an edge connects a node that is not in
+	 *   the graph
 	 */
 	public List<Graph> getCliques( ) {
-		final Stack<Node> remaining = new Stack<>( );
-		remaining.addAll( nodes.values( ) );
-		final List<Graph> cliques = new ArrayList<>( );
+		// number the nodes and join the sets of every pair of connected nodes
+		final List<Node> nodelist = new ArrayList<>( nodes.values( ) );
+		final Map<Node, Integer> index = new HashMap<>( nodelist.size( ) * 2 );
+		for( int i = 0; i < nodelist.size( ); i++ ) index.put( nodelist.get( i ), i );
 		
-		while( remaining.size( ) > 0 ) {
-			final Node n = remaining.pop( );
-			
-			// create clique from this node
-			final Stack<Node> nextnodes = new Stack<>( );
-			nextnodes.add( n );
-			final Graph g = new Graph( );
-			while( !nextnodes.empty( ) ) {
-				final Node next = nextnodes.pop( );
-				if( g.contains( next.label ) ) continue;
-				
-				g.addNode( next.label );
-				
-				// and find new nodes to explore
-				nextnodes.addAll( next.getNeighbours( ) );
-			}
-			
-			// copy edges from the original graph into the sub graph
-			for( final Edge e : edges ) {
-				if( g.contains( e.from.label ) && g.contains( e.to.label ) )
-					g.addEdge( new Edge( e.from, e.to, e.weight ) );
-			}
-			
-			// add clique and remove clique nodes from the remaining set
-			cliques.add( g );
-			remaining.removeAll( g.getNodes( ) );
+		final DisjointSet sets = new DisjointSet( nodelist.size( ) );
+		for( final Edge e : edges ) sets.union( CompactGraph.nodeIndex( index, e, e.from ), CompactGraph.nodeIndex( index, e, e.to ) );
+		
+		// create one graph per set and distribute the nodes and edges over them
+		final int[] ids = sets.getSetIds( );
+		final List<Graph> cliques = new ArrayList<>( sets.count( ) );
+		for( int i = 0; i < sets.count( ); i++ ) cliques.add( new Graph( ) );
+		
+		for( int i = 0; i < nodelist.size( ); i++ ) {
+			final Node n = nodelist.get( i );
+			cliques.get( ids[i] ).nodes.put( n.getLabel( ), n );
 		}
+		for( final Edge e : edges ) cliques.get( ids[ index.get( e.from ) ] ).edges.add( e );
 		
 		return cliques;
 	}
@@ -201,7 +294,7 @@ public class Graph {
 
 		// parse the edges
 		for( final String s : input ) {
-			final Matcher m = Pattern.compile( "^(\\w+)\\s*-\\s*(\\w+)$" ).matcher( s.trim( ) );
+			final Matcher m = EDGE_PATTERN.matcher( s.trim( ) );
 			if( !m.find( ) ) throw new IllegalArgumentException( "Edge not formatted properly: " + s );
 
 			// first make sure we know the nodes of the edge
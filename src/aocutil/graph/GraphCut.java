@@ -0,0 +1,114 @@
+package aocutil.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cut of a {@link CompactGraph}: a partition of its nodes into a source
+ * side and a sink side, together with the value of the cut and the edges
+ * that cross it
+ *
+ * @author Joris
+ */
+public class GraphCut {
+	/** The graph that is cut */
+	protected final CompactGraph graph;
+
+	/** The value of the cut, i.e. the total weight of the cut arcs */
+	protected final long value;
+
+	/** True for every node index on the source side of the cut */
+	protected final boolean[] sourceside;
+
+	/** The edges that cross the cut */
+	protected final List<Edge> cutedges;
+
+	/**
+	 * Creates a new cut and determines the edges that cross it
+	 *
+	 * @param graph The graph
+	 * @param value The value of the cut
+	 * @param sourceside True for every node on the source side
+	 * @param directed True to only consider arcs from the source side to the
+	 *   sink side as cut arcs, false to consider arcs in both directions
+	 */
+	protected GraphCut( final CompactGraph graph, final long value, final boolean[] sourceside, final boolean directed ) {
+		this.graph = graph;
+		this.value = value;
+		this.sourceside = sourceside;
+
+		// both arcs of an undirected edge may cross, so report every edge once
+		cutedges = new ArrayList<>( );
+		final boolean[] seen = new boolean[ graph.edgeCount( ) ];
+		for( int u = 0; u < graph.size( ); u++ ) {
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				if( sourceside[u] == sourceside[v] || (directed && !sourceside[u]) ) continue;
+				if( seen[ graph.edgeIndex( a ) ] ) continue;
+				seen[ graph.edgeIndex( a ) ] = true;
+				cutedges.add( graph.getEdge( a ) );
+			}
+		}
+	}
+
+	/** @return The value of the cut */
+	public long getValue( ) {
+		return value;
+	}
+
+	/** @return The edges that cross the cut */
+	public List<Edge> getCutEdges( ) {
+		return cutedges;
+	}
+
+	/**
+	 * @param node The node index
+	 * @return True if the node is on the source side of the cut
+	 */
+	public boolean isSourceSide( final int node ) {
+		return sourceside[node];
+	}
+
+	/**
+	 * @param node The node
+	 * @return True if the node is on the source side of the cut
+	 */
+	public boolean isSourceSide( final Node node ) {
+		return sourceside[ graph.indexOf( node ) ];
+	}
+
+	/** @return The nodes on the source side of the cut */
+	public List<Node> getSourceSide( ) {
+		return getSide( true );
+	}
+
+	/** @return The nodes on the sink side of the cut */
+	public List<Node> getSinkSide( ) {
+		return getSide( false );
+	}
+
+	/**
+	 * @param source True for the source side, false for the sink side
+	 * @return The nodes on that side of the cut
+	 */
+	private List<Node> getSide( final boolean source ) {
+		final List<Node> side = new ArrayList<>( );
+		for( int i = 0; i < sourceside.length; i++ )
+			if( sourceside[i] == source ) side.add( graph.getNode( i ) );
+		return side;
+	}
+
+	/** @return The number of nodes on the source and sink side, respectively */
+	public int[] getPartitionSizes( ) {
+		int count = 0;
+		for( final boolean s : sourceside ) if( s ) count++;
+		return new int[] { count, sourceside.length - count };
+	}
+
+	/** @return The cut value, partition sizes and cut edges */
+	@Override
+	public String toString( ) {
+		final int[] sizes = getPartitionSizes( );
+		return "GraphCut [value: " + value + ", sides: " + sizes[0] + "/" + sizes[1] + ", edges: " + cutedges + "]";
+	}
+}
@@ -0,0 +1,295 @@
+package aocutil.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import aocutil.collections.LongHashSet;
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.PackedCoord;
+import aocutil.geometry.Window2D;
+import aocutil.grid.CoordGrid;
+
+/**
+ * Compressed graph of the passable cells of a {@link CoordGrid}. Only the
+ * junctions of the grid become nodes: cells that do not have exactly two
+ * passable orthogonal neighbours, such as crossings and dead ends. Every
+ * corridor of cells between two junctions is contracted into a single
+ * undirected edge, weighted by the number of steps it takes.
+ * <br/><br/>
+ * A maze of millions of cells that mostly consists of corridors thereby
+ * becomes a graph of a few hundred nodes, on which path searches are much
+ * cheaper. The grid graph maps the nodes and edges back to grid coordinates.
+ * <br/><br/>
+ * The edges of a {@link Graph} are a set, in which two corridors of equal
+ * length between the same two junctions would be the same edge. In that
+ * case the middle cell of the later corridor also becomes a node, so that
+ * every corridor remains a distinct path in the graph.
+ *
+ * @author Joris
+ */
+public class GridGraph {
+	/** The horizontal offsets of the orthogonal neighbours */
+	private static final int[] DX = { -1, 1, 0, 0 };
+
+	/** The vertical offsets of the orthogonal neighbours */
+	private static final int[] DY = { 0, 0, -1, 1 };
+
+	/** The compressed graph */
+	protected final Graph graph;
+
+	/** The coordinate of every node */
+	protected final Map<Node, Coord2D> coords;
+
+	/** The node at every junction coordinate */
+	protected final Map<Coord2D, Node> nodes;
+
+	/** The corridor cells of every edge, in order from its from node */
+	protected final Map<Edge, List<Coord2D>> corridors;
+
+	/**
+	 * Creates a new, empty grid graph
+	 */
+	private GridGraph( ) {
+		graph = new Graph( );
+		coords = new HashMap<>( );
+		nodes = new HashMap<>( );
+		corridors = new HashMap<>( );
+	}
+
+	/**
+	 * Builds the compressed graph of a grid
+	 *
+	 * @param <T> The grid value type
+	 * @param grid The grid
+	 * @param passable Predicate that returns true for the values of cells that
+	 *   can be walked on
+	 * @return The grid graph
+	 */
+	public static <T> GridGraph fromGrid( final CoordGrid<T> grid, final Predicate<T> passable ) {
+		return fromGrid( grid, passable, Collections.emptyList( ) );
+	}
+
+	/**
+	 * Builds the compressed graph of a grid, keeping the specified cells as
+	 * nodes even if they are part of a corridor, e.g. the start and goal
+	 * positions of a search
+	 *
+	 * @param <T> The grid value type
+	 * @param grid The grid
+	 * @param passable Predicate that returns true for the values of cells that
+	 *   can be walked on
+	 * @param keep The coordinates that must become nodes
+	 * @return The grid graph
+	 * @throws IllegalArgumentException if one of the coordinates to keep is
+	 *   not a passable cell
+	 */
+	public static <T> GridGraph fromGrid( final CoordGrid<T> grid, final Predicate<T> passable, final Collection<Coord2D> keep ) {
+		final GridGraph gg = new GridGraph( );
+		final Window2D window = grid.window( );
+		if( window.empty( ) ) return gg;
+		final Builder<T> builder = gg.new Builder<>( grid, passable );
+
+		// create the nodes of the kept cells and all junctions
+		for( final Coord2D c : keep ) {
+			if( !builder.isPassable( c.x, c.y ) ) throw new IllegalArgumentException( "Cannot keep " + c + ", it is not a passable cell" );
+			builder.addJunction( c.x, c.y );
+		}
+		for( int y = window.getMinY( ); y <= window.getMaxY( ); y++ )
+			for( int x = window.getMinX( ); x <= window.getMaxX( ); x++ )
+				if( builder.isPassable( x, y ) && builder.degree( x, y ) != 2 ) builder.addJunction( x, y );
+
+		for( final Node n : new ArrayList<>( gg.graph.getNodes( ) ) ) builder.traceCorridors( gg.coords.get( n ) );
+
+		// corridors that form closed loops do not contain a junction, so make
+		// one of their cells a node
+		for( int y = window.getMinY( ); y <= window.getMaxY( ); y++ )
+			for( int x = window.getMinX( ); x <= window.getMaxX( ); x++ ) {
+				final long p = PackedCoord.pack( x, y );
+				if( !builder.isPassable( x, y ) || builder.junctions.contains( p ) || builder.visited.contains( p ) ) continue;
+				builder.addJunction( x, y );
+				builder.traceCorridors( Coord2D.of( x, y ) );
+			}
+
+		return gg;
+	}
+
+	/** @return The compressed graph */
+	public Graph getGraph( ) {
+		return graph;
+	}
+
+	/**
+	 * @param node The node
+	 * @return The grid coordinate of the node
+	 */
+	public Coord2D getCoord( final Node node ) {
+		return coords.get( node );
+	}
+
+	/**
+	 * @param coord The grid coordinate
+	 * @return The node at the coordinate, null if the coordinate is not a
+	 *   junction
+	 */
+	public Node getNode( final Coord2D coord ) {
+		return nodes.get( coord );
+	}
+
+	/**
+	 * @param edge The edge
+	 * @return The cells of the corridor that the edge represents, excluding
+	 *   its end points, in order from the from node of the edge
+	 */
+	public List<Coord2D> getCorridor( final Edge edge ) {
+		return corridors.get( edge );
+	}
+
+	/** @return The number of nodes and edges */
+	@Override
+	public String toString( ) {
+		return "GridGraph [nodes: " + graph.size( ) + ", edges: " + graph.getEdges( ).size( ) + "]";
+	}
+
+	/**
+	 * Helper that holds the grid and the bookkeeping of the cells while the
+	 * graph is built
+	 *
+	 * @param <T> The grid value type
+	 */
+	private class Builder<T> {
+		/** The grid */
+		private final CoordGrid<T> grid;
+
+		/** The passable cell predicate */
+		private final Predicate<T> passable;
+
+		/** The packed coordinates of all junctions */
+		private final LongHashSet junctions;
+
+		/** The packed coordinates of all cells that are part of a corridor */
+		private final LongHashSet visited;
+
+		/** The packed coordinates of the corridor cells that were made a node */
+		private final LongHashSet splits;
+
+		/**
+		 * Creates a new builder
+		 *
+		 * @param grid The grid
+		 * @param passable The passable cell predicate
+		 */
+		private Builder( final CoordGrid<T> grid, final Predicate<T> passable ) {
+			this.grid = grid;
+			this.passable = passable;
+			this.junctions = new LongHashSet( );
+			this.visited = new LongHashSet( );
+			this.splits = new LongHashSet( );
+		}
+
+		/**
+		 * @param x The x coordinate
+		 * @param y The y coordinate
+		 * @return True if the cell is within the grid and passable
+		 */
+		private boolean isPassable( final int x, final int y ) {
+			return grid.window( ).contains( x, y ) && passable.test( grid.get( x, y ) );
+		}
+
+		/**
+		 * @param x The x coordinate
+		 * @param y The y coordinate
+		 * @return The number of passable orthogonal neighbours of the cell
+		 */
+		private int degree( final int x, final int y ) {
+			int degree = 0;
+			for( int i = 0; i < DX.length; i++ )
+				if( isPassable( x + DX[i], y + DY[i] ) ) degree++;
+			return degree;
+		}
+
+		/**
+		 * Adds a node for the junction at the given cell, if it does not exist
+		 * yet
+		 *
+		 * @param x The x coordinate
+		 * @param y The y coordinate
+		 */
+		private void addJunction( final int x, final int y ) {
+			if( !junctions.add( PackedCoord.pack( x, y ) ) ) return;
+			final Coord2D c = Coord2D.of( x, y );
+			final Node n = graph.addNode( c.toString( ) );
+			coords.put( n, c );
+			nodes.put( c, n );
+		}
+
+		/**
+		 * Follows every corridor that leaves the junction and adds an edge for
+		 * every corridor that has not been followed from its other end yet
+		 *
+		 * @param start The junction coordinate
+		 */
+		private void traceCorridors( final Coord2D start ) {
+			for( int i = 0; i < DX.length; i++ ) {
+				int x = start.x + DX[i], y = start.y + DY[i];
+				if( !isPassable( x, y ) ) continue;
+
+				// a corridor without cells is only added from its smallest end, the
+				// neighbours of a split cell are already connected to it
+				long p = PackedCoord.pack( x, y );
+				if( junctions.contains( p ) ) {
+					if( p > PackedCoord.pack( start.x, start.y ) && !splits.contains( p ) ) addCorridor( start, Coord2D.of( x, y ), new ArrayList<>( ) );
+					continue;
+				}
+				if( visited.contains( p ) ) continue;
+
+				// walk the corridor until the next junction
+				final List<Coord2D> cells = new ArrayList<>( );
+				int px = start.x, py = start.y;
+				while( !junctions.contains( p ) ) {
+					visited.add( p );
+					cells.add( Coord2D.of( x, y ) );
+					for( int j = 0; j < DX.length; j++ ) {
+						final int nx = x + DX[j], ny = y + DY[j];
+						if( (nx == px && ny == py) || !isPassable( nx, ny ) ) continue;
+						px = x; py = y;
+						x = nx; y = ny;
+						break;
+					}
+					p = PackedCoord.pack( x, y );
+				}
+				addCorridor( start, Coord2D.of( x, y ), cells );
+			}
+		}
+
+		/**
+		 * Adds the edge of a corridor to the graph. If an equal edge of another
+		 * corridor already exists, the corridor is split at its middle cell into
+		 * two edges instead.
+		 *
+		 * @param from The junction at which the corridor starts
+		 * @param to The junction at which the corridor ends
+		 * @param cells The cells in between
+		 */
+		private void addCorridor( final Coord2D from, final Coord2D to, final List<Coord2D> cells ) {
+			final Edge e = new Edge( nodes.get( from ), nodes.get( to ), cells.size( ) + 1 );
+			if( graph.addEdge( e ) ) {
+				corridors.put( e, cells );
+				return;
+			}
+			
+			// an equal corridor has at least one cell, as two junctions can only be
+			// adjacent once, and the edges to the new node are always unique
+			final int mid = cells.size( ) / 2;
+			final Coord2D m = cells.get( mid );
+			splits.add( PackedCoord.pack( m.x, m.y ) );
+			addJunction( m.x, m.y );
+			addCorridor( from, m, new ArrayList<>( cells.subList( 0, mid ) ) );
+			addCorridor( m, to, new ArrayList<>( cells.subList( mid + 1, cells.size( ) ) ) );
+		}
+	}
+}
@@ -4,15 +4,14 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
+import aocutil.object.LabeledObject;
+
 /**
  * Graph Node
  * 
  * @author Joris
  */
-public class Node {
-	/** The node label */
-	protected final String label;
-	
+public class Node extends LabeledObject {
 	/** Connected edges */
 	protected final Set<Edge> edges;
 	
@@ -20,30 +19,21 @@ public class Node {
 	 * Creates a new node with the specified label
 	 * 
 	 * @param label The node label
+	 * @throws IllegalArgumentException if the label is null or empty
 	 */
 	public Node( final String label ) {
-		this.label = label;
+		super( label );
 		
 		this.edges = new HashSet<>( );
 	}
 	
-	/** @return The label */
-	public String getLabel( ) { return label; }
-	
 	/**
 	 * @return String description of the node
 	 */
+	@Override
 	public String toString( ) {
 		return "(" + getLabel( ) + ")";
 	}
-
-	/**
-	 * Hash code needed for hash set, simply return that of its label
-	 */
-	@Override
-	public int hashCode( ) {
-		return label.hashCode( );
-	}
 	
 	/**
 	 * Adds an edge to the node edge list
@@ -110,17 +100,4 @@ public class Node {
 		}
 		return neighbours;
 	}
-	
-	/**
-	 * Check if it equals another node
-	 * 
-	 * @param obj The object representing the other node
-	 * @return True iff the labels are equal
-	 */
-	public boolean equals( Object obj ) {
-		if( obj == null || !(obj instanceof Node) ) return false;
-		final Node node = (Node)obj;
-		
-		return node.label.equals( label );
-	}
 }
@@ -4,48 +4,81 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Container that holds a path of successive nodes
- * 
+ * Container that holds a path of successive nodes. Paths are immutable and
+ * persistent: an extended path only stores its last node and refers to the
+ * path it extends, so that many paths can share a common prefix and
+ * extending a path takes constant time and memory.
+ *
  * @author Joris
  */
 public class Path {
-	/** The nodes in this path, from start to end */
-	protected List<Node> nodes;
-	
+	/** The path this path extends, null for a path of one node */
+	protected final Path prefix;
+
+	/** The last node of the path */
+	protected final Node end;
+
+	/** The number of nodes in the path */
+	protected final int size;
+
 	/**
 	 * Creates a new path from the given start node
-	 * 
+	 *
 	 * @param start The starting node of the path
 	 */
 	public Path( final Node start ) {
-		this.nodes = new ArrayList<>( 1 );
-		nodes.add( start );
+		this( null, start );
 	}
-	
+
 	/**
-	 * Copies an existing path and extends it by one node
+	 * Creates a path that extends an existing path by one node
+	 *
+	 * @param p The path to extend, null to start a new path
+	 * @param newnode The node to append
 	 */
 	private Path( final Path p, final Node newnode ) {
-		this.nodes = new ArrayList<>( p.size() + 1 );
-		this.nodes.addAll( p.nodes );
-		this.nodes.add( newnode );
+		this.prefix = p;
+		this.end = newnode;
+		this.size = p == null ? 1 : p.size + 1;
 	}
-	
-	/** @return The list of nodes in this path */
+
+	/**
+	 * Builds the list of nodes in this path. The path itself is immutable, so
+	 * the list is a new copy of which changes do not affect the path.
+	 * 
+	 * @return The list of nodes in this path, from start to end
+	 */
 	public List<Node> getNodes( ) {
-		return nodes;
+		final Node[] n = new Node[ size ];
+		Path p = this;
+		for( int i = size - 1; i >= 0; i-- ) {
+			n[i] = p.end;
+			p = p.prefix;
+		}
+		final List<Node> list = new ArrayList<>( size );
+		for( final Node node : n ) list.add( node );
+		return list;
 	}
-	
+
 	/**
 	 * @return The last node in the path
 	 */
 	public Node getEnd( ) {
-		return nodes.get( size( ) - 1 );
+		return end;
 	}
-	
+
 	/**
-	 * Copies the path and appends the node
-	 * 
+	 * @return The path without its last node, null if the path only consists of
+	 *   its start node
+	 */
+	public Path getPrefix( ) {
+		return prefix;
+	}
+
+	/**
+	 * Extends the path by one node, the new path shares all other nodes with
+	 * this path
+	 *
 	 * @param node The node to add
 	 * @return The new path with the node appended
 	 */
@@ -55,29 +88,31 @@ public class Path {
 
 	/**
 	 * Checks if the path already contains the node
-	 * 
+	 *
 	 * @param node The node to check
 	 * @return True iff the node is already in the node list of this path
 	 */
 	public boolean contains( final Node node ) {
-		return nodes.contains( node );
+		for( Path p = this; p != null; p = p.prefix )
+			if( p.end.equals( node ) ) return true;
+		return false;
 	}
-	
+
 	/** @return The number of nodes in the path */
 	public int size( ) {
-		return nodes.size( );
+		return size;
 	}
-	
+
 	/** @return The path string description with its nodes */
 	@Override
 	public String toString( ) {
-		if( size( ) == 0 ) return "[]";
+		final List<Node> n = getNodes( );
 		final StringBuilder sb = new StringBuilder( );
 		sb.append( "[" );
-		sb.append( nodes.get( 0 ).getLabel( ) );
-		for( int i = 1; i < size( ); i++ ) {
+		sb.append( n.get( 0 ).getLabel( ) );
+		for( int i = 1; i < n.size( ); i++ ) {
 			sb.append( "," );
-			sb.append( nodes.get( i ) );
+			sb.append( n.get( i ) );
 		}
 		sb.append( "]" );
 		return sb.toString( );
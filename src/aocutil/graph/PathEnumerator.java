@@ -0,0 +1,270 @@
+package aocutil.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import aocutil.collections.LongLongHashMap;
+
+/**
+ * Depth-first enumeration of the simple paths between two nodes of a
+ * {@link CompactGraph} with at most 64 nodes. The set of visited nodes is
+ * kept as a bitmask, so that checking and updating it takes constant time.
+ * <br/><br/>
+ * The search can be restricted by a {@link Pruner} that rejects search
+ * states. Path counts and longest paths are memoised on the search state,
+ * i.e. the current node together with the set of visited nodes, so that
+ * every state is only expanded once.
+ *
+ * @author Joris
+ */
+public class PathEnumerator {
+	/** The value stored in the memo for states from which the target cannot be reached */
+	private static final long NO_PATH = Long.MIN_VALUE;
+
+	/** The graph to search */
+	protected final CompactGraph graph;
+
+	/** The pruner that is applied to every search state, null for none */
+	protected Pruner pruner;
+
+	/** True to memoise search results by state */
+	protected boolean memoise;
+
+	/** The memo per current node, mapping visited sets to results */
+	private LongLongHashMap[] memo;
+
+	/**
+	 * Creates a new path enumerator with memoisation enabled and without
+	 * pruning
+	 *
+	 * @param graph The graph to search
+	 * @throws IllegalArgumentException if the graph has more than 64 nodes
+	 */
+	public PathEnumerator( final CompactGraph graph ) {
+		if( graph.size( ) > 64 ) throw new IllegalArgumentException( "Path enumeration supports at most 64 nodes, the graph has " + graph.size( ) );
+		this.graph = graph;
+		this.pruner = null;
+		this.memoise = true;
+	}
+
+	/**
+	 * Sets the pruner that rejects search states. As results are memoised by
+	 * state, the pruner should only depend on the current node and the set
+	 * of visited nodes.
+	 *
+	 * @param pruner The pruner, null to disable pruning
+	 * @return This enumerator
+	 */
+	public PathEnumerator setPruner( final Pruner pruner ) {
+		this.pruner = pruner;
+		return this;
+	}
+
+	/**
+	 * Enables or disables memoisation of path counts and longest paths
+	 *
+	 * @param memoise True to memoise results by search state
+	 * @return This enumerator
+	 */
+	public PathEnumerator setMemoise( final boolean memoise ) {
+		this.memoise = memoise;
+		return this;
+	}
+
+	/**
+	 * Counts the simple paths from source to target
+	 *
+	 * @param source The index of the source node
+	 * @param target The index of the target node
+	 * @return The number of paths
+	 */
+	public long countPaths( final int source, final int target ) {
+		resetMemo( );
+		final long visited = 1L << source;
+		if( isPruned( source, visited ) ) return 0;
+		return count( source, target, visited );
+	}
+
+	/**
+	 * Determines the length of the longest simple path from source to target,
+	 * measured as the sum of its arc weights
+	 *
+	 * @param source The index of the source node
+	 * @param target The index of the target node
+	 * @return The length of the longest path, -1 if there is no path
+	 */
+	public long longestPath( final int source, final int target ) {
+		resetMemo( );
+		final long visited = 1L << source;
+		if( isPruned( source, visited ) ) return -1;
+		final long length = longest( source, target, visited );
+		return length == NO_PATH ? -1 : length;
+	}
+
+	/**
+	 * Performs the action for every simple path from source to target. Paths
+	 * are not memoised, they are built incrementally and share their common
+	 * prefixes.
+	 *
+	 * @param source The index of the source node
+	 * @param target The index of the target node
+	 * @param action The action to perform for every path
+	 */
+	public void forEachPath( final int source, final int target, final Consumer<Path> action ) {
+		final long visited = 1L << source;
+		if( isPruned( source, visited ) ) return;
+		enumerate( new Path( graph.getNode( source ) ), source, target, visited, action );
+	}
+
+	/**
+	 * Collects all simple paths from source to target
+	 *
+	 * @param source The source node
+	 * @param target The target node
+	 * @return The list of paths
+	 */
+	public List<Path> getPaths( final Node source, final Node target ) {
+		final List<Path> paths = new ArrayList<>( );
+		forEachPath( graph.indexOf( source ), graph.indexOf( target ), paths::add );
+		return paths;
+	}
+
+	/**
+	 * Counts the paths to the target from the given search state
+	 *
+	 * @param node The current node
+	 * @param target The target node
+	 * @param visited The visited nodes, including the current node
+	 * @return The number of paths
+	 */
+	private long count( final int node, final int target, final long visited ) {
+		if( node == target ) return 1;
+		if( memoise ) {
+			final long known = memo[node].get( visited, -1 );
+			if( known >= 0 ) return known;
+		}
+
+		long paths = 0;
+		for( int a = graph.firstArc( node ); a < graph.endArc( node ); a++ ) {
+			final int next = graph.target( a );
+			final long v = visited | (1L << next);
+			if( v == visited || isPruned( next, v ) ) continue;
+			paths += count( next, target, v );
+		}
+
+		if( memoise ) memo[node].put( visited, paths );
+		return paths;
+	}
+
+	/**
+	 * Determines the longest path length to the target from the given search
+	 * state
+	 *
+	 * @param node The current node
+	 * @param target The target node
+	 * @param visited The visited nodes, including the current node
+	 * @return The longest path length, NO_PATH if the target cannot be reached
+	 */
+	private long longest( final int node, final int target, final long visited ) {
+		if( node == target ) return 0;
+		if( memoise && memo[node].containsKey( visited ) ) return memo[node].get( visited );
+
+		long best = NO_PATH;
+		for( int a = graph.firstArc( node ); a < graph.endArc( node ); a++ ) {
+			final int next = graph.target( a );
+			final long v = visited | (1L << next);
+			if( v == visited || isPruned( next, v ) ) continue;
+			final long length = longest( next, target, v );
+			if( length != NO_PATH ) best = Math.max( best, length + graph.weight( a ) );
+		}
+
+		if( memoise ) memo[node].put( visited, best );
+		return best;
+	}
+
+	/**
+	 * Enumerates the paths to the target that extend the given path
+	 *
+	 * @param path The path so far
+	 * @param node The index of the last node of the path
+	 * @param target The target node
+	 * @param visited The visited nodes, including the current node
+	 * @param action The action to perform for every complete path
+	 */
+	private void enumerate( final Path path, final int node, final int target, final long visited, final Consumer<Path> action ) {
+		if( node == target ) {
+			action.accept( path );
+			return;
+		}
+
+		for( int a = graph.firstArc( node ); a < graph.endArc( node ); a++ ) {
+			final int next = graph.target( a );
+			final long v = visited | (1L << next);
+			if( v == visited || isPruned( next, v ) ) continue;
+			enumerate( path.extend( graph.getNode( next ) ), next, target, v, action );
+		}
+	}
+
+	/**
+	 * @param node The current node
+	 * @param visited The visited nodes
+	 * @return True if the pruner rejects the state
+	 */
+	private boolean isPruned( final int node, final long visited ) {
+		return pruner != null && pruner.prune( node, visited );
+	}
+
+	/**
+	 * Clears the memo before a new search
+	 */
+	private void resetMemo( ) {
+		if( !memoise ) return;
+		memo = new LongLongHashMap[ graph.size( ) ];
+		for( int i = 0; i < memo.length; i++ ) memo[i] = new LongLongHashMap( );
+	}
+
+	/**
+	 * Creates a pruner that rejects every state from which the target can no
+	 * longer be reached without revisiting a node. The check is a
+	 * breadth-first search over node bitmasks and is cheap compared to
+	 * exploring a dead branch.
+	 *
+	 * @param graph The graph
+	 * @param target The index of the target node
+	 * @return The pruner
+	 */
+	public static Pruner unreachable( final CompactGraph graph, final int target ) {
+		final long[] adjacent = new long[ graph.size( ) ];
+		for( int u = 0; u < graph.size( ); u++ )
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) adjacent[u] |= 1L << graph.target( a );
+
+		return (node, visited) -> {
+			long reached = 1L << node;
+			long frontier = reached;
+			while( frontier != 0 && (reached & (1L << target)) == 0 ) {
+				long expanded = 0;
+				for( long f = frontier; f != 0; f &= f - 1 ) expanded |= adjacent[ Long.numberOfTrailingZeros( f ) ];
+				frontier = expanded & ~visited & ~reached;
+				reached |= frontier;
+			}
+			return (reached & (1L << target)) == 0;
+		};
+	}
+
+	/**
+	 * Decides whether a search state is explored further
+	 */
+	@FunctionalInterface
+	public interface Pruner {
+		/**
+		 * Checks whether the search should skip the state
+		 *
+		 * @param node The index of the node that is reached
+		 * @param visited The bitmask of visited node indices, including the
+		 *   reached node
+		 * @return True to prune the state
+		 */
+		boolean prune( final int node, final long visited );
+	}
+}
@@ -0,0 +1,190 @@
+package aocutil.graph;
+
+import java.util.Arrays;
+
+import aocutil.collections.upqueue.UniqueIntKeyPriorityQueue;
+
+/**
+ * Single-source and all-pairs shortest path algorithms over the index-based
+ * {@link CompactGraph} view of a graph. Distances are returned as primitive
+ * arrays indexed by node index, unreachable nodes have distance
+ * {@link DistanceMatrix#UNREACHABLE}.
+ * <br/><br/>
+ * Note that an undirected edge with a negative weight can be traversed back
+ * and forth and therefore always forms a negative cycle.
+ *
+ * @author Joris
+ */
+public class ShortestPaths {
+	/**
+	 * Computes the distances from a single source using Dijkstra's algorithm.
+	 * All arc weights must be non-negative.
+	 *
+	 * @param graph The graph
+	 * @param source The index of the source node
+	 * @return The distance to every node
+	 * @throws IllegalArgumentException if a negative arc weight is encountered
+	 */
+	public static long[] dijkstra( final CompactGraph graph, final int source ) {
+		return dijkstra( graph, source, null, new UniqueIntKeyPriorityQueue( graph.size( ) ) );
+	}
+
+	/**
+	 * Computes the distances from a single source node using Dijkstra's
+	 * algorithm
+	 *
+	 * @param graph The graph
+	 * @param source The source node
+	 * @return The distance to every node, by node index
+	 * @throws IllegalArgumentException if a negative arc weight is encountered
+	 */
+	public static long[] dijkstra( final CompactGraph graph, final Node source ) {
+		return dijkstra( graph, graph.indexOf( source ) );
+	}
+
+	/**
+	 * Computes the distances from a single source using the Bellman-Ford
+	 * algorithm, which supports negative arc weights
+	 *
+	 * @param graph The graph
+	 * @param source The index of the source node
+	 * @return The distance to every node
+	 * @throws RuntimeException if a negative cycle is reachable from the source
+	 */
+	public static long[] bellmanFord( final CompactGraph graph, final int source ) {
+		final long[] dist = new long[ graph.size( ) ];
+		Arrays.fill( dist, DistanceMatrix.UNREACHABLE );
+		dist[source] = 0;
+		relax( graph, dist );
+		return dist;
+	}
+
+	/**
+	 * Computes all-pairs distances using the Floyd-Warshall algorithm in
+	 * O(n^3), which is typically the fastest option on small, dense graphs
+	 *
+	 * @param graph The graph
+	 * @return The distance matrix
+	 * @throws RuntimeException if the graph contains a negative cycle
+	 */
+	public static DistanceMatrix floydWarshall( final CompactGraph graph ) {
+		final int n = graph.size( );
+		final long[][] dist = new long[ n ][ n ];
+		for( int u = 0; u < n; u++ ) {
+			Arrays.fill( dist[u], DistanceMatrix.UNREACHABLE );
+			dist[u][u] = 0;
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				dist[u][v] = Math.min( dist[u][v], graph.weight( a ) );
+			}
+		}
+
+		for( int k = 0; k < n; k++ ) {
+			final long[] dk = dist[k];
+			for( int i = 0; i < n; i++ ) {
+				final long dik = dist[i][k];
+				if( dik == DistanceMatrix.UNREACHABLE ) continue;
+				final long[] di = dist[i];
+				for( int j = 0; j < n; j++ ) {
+					if( dk[j] == DistanceMatrix.UNREACHABLE ) continue;
+					if( dik + dk[j] < di[j] ) di[j] = dik + dk[j];
+				}
+			}
+		}
+
+		for( int i = 0; i < n; i++ )
+			if( dist[i][i] < 0 ) throw new RuntimeException( "Graph contains a negative cycle through " + graph.getNode( i ) );
+		return new DistanceMatrix( graph, dist );
+	}
+
+	/**
+	 * Computes all-pairs distances using Johnson's algorithm: the arc weights
+	 * are made non-negative using node potentials computed by Bellman-Ford,
+	 * after which Dijkstra is run from every node. Runs in O(n m log n), which
+	 * is preferable to Floyd-Warshall on sparse graphs.
+	 *
+	 * @param graph The graph
+	 * @return The distance matrix
+	 * @throws RuntimeException if the graph contains a negative cycle
+	 */
+	public static DistanceMatrix johnson( final CompactGraph graph ) {
+		final int n = graph.size( );
+
+		// compute potentials as if from a virtual source connected to all nodes
+		final long[] potential = new long[ n ];
+		relax( graph, potential );
+
+		final UniqueIntKeyPriorityQueue queue = new UniqueIntKeyPriorityQueue( n );
+		final long[][] dist = new long[ n ][ ];
+		for( int s = 0; s < n; s++ ) {
+			final long[] d = dijkstra( graph, s, potential, queue );
+			for( int t = 0; t < n; t++ )
+				if( d[t] != DistanceMatrix.UNREACHABLE ) d[t] += potential[t] - potential[s];
+			dist[s] = d;
+		}
+		return new DistanceMatrix( graph, dist );
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm, optionally on arc weights that are reduced by
+	 * node potentials: w'(u,v) = w(u,v) + p(u) - p(v)
+	 *
+	 * @param graph The graph
+	 * @param source The index of the source node
+	 * @param potential The node potentials, null to use the plain weights
+	 * @param queue The (empty) queue to use
+	 * @return The (reduced) distance to every node
+	 * @throws IllegalArgumentException if a negative (reduced) arc weight is
+	 *   encountered
+	 */
+	private static long[] dijkstra( final CompactGraph graph, final int source, final long[] potential, final UniqueIntKeyPriorityQueue queue ) {
+		final long[] dist = new long[ graph.size( ) ];
+		Arrays.fill( dist, DistanceMatrix.UNREACHABLE );
+		dist[source] = 0;
+		queue.insert( source, 0 );
+
+		while( !queue.isEmpty( ) ) {
+			final long d = queue.peekPriority( );
+			final int u = queue.poll( );
+			for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+				final int v = graph.target( a );
+				final long w = potential == null ? graph.weight( a ) : graph.weight( a ) + potential[u] - potential[v];
+				if( w < 0 ) throw new IllegalArgumentException( "Negative arc weight " + graph.weight( a ) + " on " + graph.getEdge( a ) );
+
+				if( d + w < dist[v] ) {
+					dist[v] = d + w;
+					queue.insert( v, d + w );
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Performs Bellman-Ford relaxation rounds on the distance array until no
+	 * distance improves anymore
+	 *
+	 * @param graph The graph
+	 * @param dist The initial distances, updated in place
+	 * @throws RuntimeException if distances still improve after n rounds, i.e.
+	 *   there is a negative cycle
+	 */
+	private static void relax( final CompactGraph graph, final long[] dist ) {
+		final int n = graph.size( );
+		for( int round = 0; round <= n; round++ ) {
+			boolean changed = false;
+			for( int u = 0; u < n; u++ ) {
+				if( dist[u] == DistanceMatrix.UNREACHABLE ) continue;
+				for( int a = graph.firstArc( u ); a < graph.endArc( u ); a++ ) {
+					final int v = graph.target( a );
+					if( dist[u] + graph.weight( a ) < dist[v] ) {
+						dist[v] = dist[u] + graph.weight( a );
+						changed = true;
+					}
+				}
+			}
+			if( !changed ) return;
+		}
+		throw new RuntimeException( "Graph contains a negative cycle" );
+	}
+}
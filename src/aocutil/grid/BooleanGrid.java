@@ -0,0 +1,192 @@
+package aocutil.grid;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.Window2D;
+
+/**
+ * Fixed-size grid of boolean values that is backed by a bit set, using a
+ * single bit per cell. Offers allocation-free accessors to avoid the boxing
+ * costs of a <code>CoordGrid&lt;Boolean&gt;</code>. All cells are false
+ * initially.
+ *
+ * @author Joris
+ */
+public class BooleanGrid extends PrimitiveGrid {
+	/** The grid values in row-major order */
+	protected final BitSet cells;
+
+	/**
+	 * Creates a new boolean grid that spans (0,0) to (width-1, height-1)
+	 *
+	 * @param width The grid width
+	 * @param height The grid height
+	 */
+	public BooleanGrid( final int width, final int height ) {
+		this( new Window2D( width, height ) );
+	}
+
+	/**
+	 * Creates a new boolean grid that spans the given window
+	 *
+	 * @param window The grid window
+	 */
+	public BooleanGrid( final Window2D window ) {
+		super( window );
+		this.cells = new BitSet( width * height );
+	}
+
+	/**
+	 * Copies an existing grid
+	 *
+	 * @param grid The grid to copy
+	 */
+	public BooleanGrid( final BooleanGrid grid ) {
+		super( grid.window );
+		this.cells = (BitSet)grid.cells.clone( );
+	}
+
+	/**
+	 * Retrieves the value at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The value at (x,y), false if (x,y) is outside the grid
+	 */
+	public boolean getBoolean( final int x, final int y ) {
+		return contains( x, y ) && cells.get( toIndex( x, y ) );
+	}
+
+	/**
+	 * Retrieves the value at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @return The value at the coordinate, false if it is outside the grid
+	 */
+	public boolean getBoolean( final Coord2D coord ) {
+		return getBoolean( coord.x, coord.y );
+	}
+
+	/**
+	 * Sets the value at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param value The value to set
+	 * @return The previous value at (x,y)
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	public boolean setBoolean( final int x, final int y, final boolean value ) {
+		checkBounds( x, y );
+		final int idx = toIndex( x, y );
+		final boolean old = cells.get( idx );
+		cells.set( idx, value );
+		return old;
+	}
+
+	/**
+	 * Sets the value at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @param value The value to set
+	 * @return The previous value at the coordinate
+	 * @throws IllegalArgumentException if the coordinate is outside the grid
+	 */
+	public boolean setBoolean( final Coord2D coord, final boolean value ) {
+		return setBoolean( coord.x, coord.y, value );
+	}
+
+	/**
+	 * Retrieves the value of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @return The value of the cell
+	 * @throws IndexOutOfBoundsException if the index is negative
+	 */
+	public boolean getBooleanAt( final int index ) {
+		return cells.get( index );
+	}
+
+	/**
+	 * Sets the value of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @param value The value to set
+	 * @return The previous value of the cell
+	 * @throws IndexOutOfBoundsException if the index is negative
+	 */
+	public boolean setBooleanAt( final int index, final boolean value ) {
+		final boolean old = cells.get( index );
+		cells.set( index, value );
+		return old;
+	}
+
+	/**
+	 * Counts the number of cells that hold the specified value
+	 *
+	 * @param value The value to count
+	 * @return The number of cells with this value
+	 */
+	public long count( final boolean value ) {
+		final long set = cells.cardinality( );
+		return value ? set : (long)width * height - set;
+	}
+
+	/**
+	 * Finds the coordinates of all cells that are true
+	 *
+	 * @return The coordinates of the true cells, possibly empty
+	 */
+	public Collection<Coord2D> find( ) {
+		final List<Coord2D> found = new ArrayList<>( cells.cardinality( ) );
+		for( int i = cells.nextSetBit( 0 ); i >= 0; i = cells.nextSetBit( i + 1 ) )
+			found.add( toCoord( i ) );
+		return found;
+	}
+
+	/** @return A copy of this grid */
+	public BooleanGrid copy( ) {
+		return new BooleanGrid( this );
+	}
+
+	/**
+	 * Converts this grid into a CoordGrid of boxed Booleans. Only the cells that
+	 * are true are stored in the CoordGrid, its default value is false.
+	 *
+	 * @return The CoordGrid with the same window and values
+	 */
+	public CoordGrid<Boolean> toCoordGrid( ) {
+		final CoordGrid<Boolean> grid = new CoordGrid<>( false );
+		grid.fixWindow( window );
+		for( int i = cells.nextSetBit( 0 ); i >= 0; i = cells.nextSetBit( i + 1 ) )
+			grid.set( toCoord( i ), true );
+		return grid;
+	}
+
+	/**
+	 * Constructs a boolean grid from a list of strings, one string per row
+	 *
+	 * @param input The list of strings that contains a single-char grid
+	 * @param truechar The character that represents a true value
+	 * @return The BooleanGrid
+	 */
+	public static BooleanGrid fromBooleanGrid( final List<String> input, final char truechar ) {
+		final BooleanGrid grid = new BooleanGrid( windowOf( input ) );
+		for( int y = 0; y < input.size( ); y++ ) {
+			final String row = input.get( y );
+			for( int x = 0; x < row.length( ); x++ )
+				if( row.charAt( x ) == truechar ) grid.cells.set( grid.toIndex( x, y ) );
+		}
+		return grid;
+	}
+
+	/** @return The grid as string of # for true and . for false cells */
+	@Override
+	public String toString( ) {
+		return toString( i -> cells.get( i ) ? "#" : "." );
+	}
+}
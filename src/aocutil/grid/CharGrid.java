@@ -0,0 +1,206 @@
+package aocutil.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.Window2D;
+
+/**
+ * Fixed-size grid of characters that is backed by a flat char array. Offers
+ * allocation-free accessors to avoid the boxing costs of a
+ * <code>CoordGrid&lt;Character&gt;</code>.
+ *
+ * @author Joris
+ */
+public class CharGrid extends PrimitiveGrid {
+	/** The grid values in row-major order */
+	protected final char[] cells;
+
+	/** The default value for all cells that have not been assigned */
+	protected final char defaultValue;
+
+	/**
+	 * Creates a new char grid that spans (0,0) to (width-1, height-1)
+	 *
+	 * @param width The grid width
+	 * @param height The grid height
+	 * @param defaultValue The initial value of all cells
+	 */
+	public CharGrid( final int width, final int height, final char defaultValue ) {
+		this( new Window2D( width, height ), defaultValue );
+	}
+
+	/**
+	 * Creates a new char grid that spans the given window
+	 *
+	 * @param window The grid window
+	 * @param defaultValue The initial value of all cells
+	 */
+	public CharGrid( final Window2D window, final char defaultValue ) {
+		super( window );
+		this.defaultValue = defaultValue;
+		this.cells = new char[ width * height ];
+		Arrays.fill( cells, defaultValue );
+	}
+
+	/**
+	 * Copies an existing grid
+	 *
+	 * @param grid The grid to copy
+	 */
+	public CharGrid( final CharGrid grid ) {
+		super( grid.window );
+		this.defaultValue = grid.defaultValue;
+		this.cells = grid.cells.clone( );
+	}
+
+	/** @return The default value of the grid */
+	public char getDefaultValue( ) {
+		return defaultValue;
+	}
+
+	/**
+	 * Retrieves the character at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The character at (x,y) or the default value if (x,y) is outside
+	 *   the grid
+	 */
+	public char getChar( final int x, final int y ) {
+		return contains( x, y ) ? cells[ toIndex( x, y ) ] : defaultValue;
+	}
+
+	/**
+	 * Retrieves the character at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @return The character at the coordinate or the default value if it is
+	 *   outside the grid
+	 */
+	public char getChar( final Coord2D coord ) {
+		return getChar( coord.x, coord.y );
+	}
+
+	/**
+	 * Sets the character at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param value The character to set
+	 * @return The previous character at (x,y)
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	public char setChar( final int x, final int y, final char value ) {
+		checkBounds( x, y );
+		final int idx = toIndex( x, y );
+		final char old = cells[idx];
+		cells[idx] = value;
+		return old;
+	}
+
+	/**
+	 * Sets the character at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @param value The character to set
+	 * @return The previous character at the coordinate
+	 * @throws IllegalArgumentException if the coordinate is outside the grid
+	 */
+	public char setChar( final Coord2D coord, final char value ) {
+		return setChar( coord.x, coord.y, value );
+	}
+
+	/**
+	 * Retrieves the character of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @return The character of the cell
+	 * @throws IndexOutOfBoundsException if the index is not a valid cell index
+	 */
+	public char getCharAt( final int index ) {
+		return cells[index];
+	}
+
+	/**
+	 * Sets the character of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @param value The character to set
+	 * @return The previous character of the cell
+	 * @throws IndexOutOfBoundsException if the index is not a valid cell index
+	 */
+	public char setCharAt( final int index, final char value ) {
+		final char old = cells[index];
+		cells[index] = value;
+		return old;
+	}
+
+	/**
+	 * Counts the number of cells that hold the specified character
+	 *
+	 * @param value The character to count
+	 * @return The number of cells with this character
+	 */
+	public long count( final char value ) {
+		long count = 0;
+		for( final char c : cells ) if( c == value ) count++;
+		return count;
+	}
+
+	/**
+	 * Finds the coordinates of all cells that hold the specified character
+	 *
+	 * @param value The character to find
+	 * @return The coordinates of the cells with the character, possibly empty
+	 */
+	public Collection<Coord2D> find( final char value ) {
+		final List<Coord2D> found = new ArrayList<>( );
+		for( int i = 0; i < cells.length; i++ ) if( cells[i] == value ) found.add( toCoord( i ) );
+		return found;
+	}
+
+	/** @return A copy of this grid */
+	public CharGrid copy( ) {
+		return new CharGrid( this );
+	}
+
+	/**
+	 * Converts this grid into a CoordGrid of boxed Characters. Cells that hold
+	 * the default value are not stored in the CoordGrid.
+	 *
+	 * @return The CoordGrid with the same window and values
+	 */
+	public CoordGrid<Character> toCoordGrid( ) {
+		final CoordGrid<Character> grid = new CoordGrid<>( defaultValue );
+		grid.fixWindow( window );
+		for( int i = 0; i < cells.length; i++ )
+			if( cells[i] != defaultValue ) grid.set( toCoord( i ), cells[i] );
+		return grid;
+	}
+
+	/**
+	 * Constructs a char grid from a list of strings, one string per row
+	 *
+	 * @param input The list of strings that contains a single-char grid
+	 * @param defaultchar The value for cells beyond the end of shorter rows
+	 * @return The CharGrid
+	 */
+	public static CharGrid fromCharGrid( final List<String> input, final char defaultchar ) {
+		final CharGrid grid = new CharGrid( windowOf( input ), defaultchar );
+		for( int y = 0; y < input.size( ); y++ ) {
+			final String row = input.get( y );
+			row.getChars( 0, row.length( ), grid.cells, grid.toIndex( 0, y ) );
+		}
+		return grid;
+	}
+
+	/** @return The grid as string */
+	@Override
+	public String toString( ) {
+		return toString( i -> String.valueOf( cells[i] ) );
+	}
+}
@@ -16,6 +16,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import aocutil.geometry.Coord2D;
+import aocutil.geometry.PackedCoord;
 import aocutil.geometry.Window2D;
 
 /**
@@ -59,6 +60,20 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		setDefaultValue( defaultValue );
 	}
 	
+	/**
+	 * Creates a new coordinate based grid that is backed by the given map and
+	 * window. Allows subclasses to provide their own storage of values.
+	 * 
+	 * @param map The map that stores the grid values
+	 * @param window The window of the grid
+	 * @param defaultValue The default value for non-assigned coordinates
+	 */
+	protected CoordGrid( final Map<Coord2D, T> map, final Window2D window, final T defaultValue ) {
+		this.map = map;
+		this.window = window;
+		setDefaultValue( defaultValue );
+	}
+	
 	/** @return The current default value for coordinates witout a value */
 	public T getDefaultValue( ) {
 		return defaultValue;
@@ -136,7 +151,7 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 	
 	/**
 	 * Adds a new value at the specified x and y position. Convenient shorthand
-	 * for <code>set( new Coord2D( x, y ) )</code>
+	 * for <code>set( Coord2D.of( x, y ) )</code>
 	 * 
 	 * @param x The x coordinate
 	 * @param y The y coordinate
@@ -144,7 +159,7 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 	 * @return The previous value that was set, null if it was not set before
 	 */
 	public T set( final int x, final int y, final T value ) {
-		return set( new Coord2D( x, y ), value );
+		return set( Coord2D.of( x, y ), value );
 	}
 	
 	/**
@@ -172,7 +187,30 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 	 * @return The value stored at (x,y) or the default value if not set
 	 */
 	public T get( final int x, final int y ) {
-		return get( new Coord2D( x, y ), defaultValue );
+		return get( Coord2D.of( x, y ), defaultValue );
+	}
+	
+	/**
+	 * Retrieves the value at the packed coordinate, as encoded by
+	 * <code>PackedCoord.pack( x, y )</code>
+	 * 
+	 * @param packed The packed coordinate
+	 * @return The value stored at the coordinate or the default value if not set
+	 */
+	public T get( final long packed ) {
+		return get( PackedCoord.unpackX( packed ), PackedCoord.unpackY( packed ) );
+	}
+	
+	/**
+	 * Adds a new value at the packed coordinate, as encoded by
+	 * <code>PackedCoord.pack( x, y )</code>
+	 * 
+	 * @param packed The packed coordinate
+	 * @param value The value to set
+	 * @return The previous value that was set, null if it was not set before
+	 */
+	public T set( final long packed, final T value ) {
+		return set( PackedCoord.unpackX( packed ), PackedCoord.unpackY( packed ), value );
 	}
 	
 	/**
@@ -298,6 +336,16 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		return map.containsKey( coord );
 	}
 	
+	/**
+	 * Checks whether the packed coordinate has a value stored in the grid
+	 * 
+	 * @param packed The packed coordinate, see <code>PackedCoord</code>
+	 * @return True iff a value is stored at the given coordinate
+	 */
+	public boolean hasValue( final long packed ) {
+		return hasValue( Coord2D.of( PackedCoord.unpackX( packed ), PackedCoord.unpackY( packed ) ) );
+	}
+	
 	/**
 	 * Finds and returns the coordinates of all grid elements that match the
 	 * specified search value
@@ -329,6 +377,17 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		return window.contains( coord );
 	}
 	
+	/**
+	 * Checks if the packed coordinate is within the bounds of the grid
+	 * 
+	 * @param packed The packed coordinate, see <code>PackedCoord</code>
+	 * @return True iff the coordinate's x and y positions are within the bounds
+	 *   of this grid
+	 */
+	public boolean contains( final long packed ) {
+		return window.contains( PackedCoord.unpackX( packed ), PackedCoord.unpackY( packed ) );
+	}
+	
 	/**
 	 * Returns the coordinate relative from the top left of the grid. That is,
 	 * if the grid spans (a,b)-(c,d) then the relative coordinate (x,y), such that
@@ -338,7 +397,7 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 	 * @return The relative position of this coordinate in the map
 	 */
 	public Coord2D getRelative( final Coord2D coord ) {
-		return new Coord2D( coord.x - window.getMinX( ), coord.y - window.getMinY( ) );
+		return Coord2D.of( coord.x - window.getMinX( ), coord.y - window.getMinY( ) );
 	}
 	
 	/**
@@ -374,8 +433,11 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		if( !contains( coord ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: " + coord );
 		
 		final Set<Coord2D> neighbours = new HashSet<>( );
-		for( final Coord2D n : coord.getAdjacent( diagonal ) ) {
-			if( window.isFixed( ) && !contains( n ) ) continue;
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = coord.x + Neighbours.DX[i], ny = coord.y + Neighbours.DY[i];
+			if( window.isFixed( ) && !window.contains( nx, ny ) ) continue;
+			
+			final Coord2D n = Coord2D.of( nx, ny );
 			if( validneighbour != null && !validneighbour.apply( n ) ) continue;
 			
 			neighbours.add( n );
@@ -383,6 +445,30 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		
 		return neighbours;
 	}
+	
+	/**
+	 * Visits all grid neighbours of the specified position without allocating
+	 * coordinates or collections. If the grid is of fixed size, only the
+	 * neighbours within the grid's window are visited.
+	 * 
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param diagonal True to include diagonal neighbours
+	 * @param visitor The consumer that is called with the x and y coordinate
+	 *   of every neighbour
+	 * @throw {@link IllegalArgumentException} if the position itself it
+	 *   outside the grid
+	 */
+	public void forEachNeighbour( final int x, final int y, final boolean diagonal, final IntIntConsumer visitor ) {
+		if( !window.contains( x, y ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: (" + x + "," + y + ")" );
+		
+		final boolean fixed = window.isFixed( );
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = x + Neighbours.DX[i], ny = y + Neighbours.DY[i];
+			if( fixed && !window.contains( nx, ny ) ) continue;
+			visitor.accept( nx, ny );
+		}
+	}
 
 	/**
 	 * Rotates all the coordinates in the grid in clockwise direction. Uses the
@@ -400,9 +486,9 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		for( final Coord2D c : this.getKeys( ) ) {
 			final T value = get( c );
 			
-			if( r == 1 ) grid.set( new Coord2D( size( ).y - 1 - c.y, c.x ), value );
-			else if( r == 2 ) grid.set( new Coord2D( size( ).x - 1 - c.x, size( ).y - 1 - c.y ), value );
-			else grid.set( new Coord2D( c.y, size( ).x - 1 - c.x ), value );
+			if( r == 1 ) grid.set( Coord2D.of( size( ).y - 1 - c.y, c.x ), value );
+			else if( r == 2 ) grid.set( Coord2D.of( size( ).x - 1 - c.x, size( ).y - 1 - c.y ), value );
+			else grid.set( Coord2D.of( c.y, size( ).x - 1 - c.x ), value );
 		}
 		return grid;
 	}
@@ -418,8 +504,8 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 		for( final Coord2D c : this.getKeys( ) ) {
 			final T value = get( c );
 			
-			if( horizontal ) grid.set( new Coord2D( size( ).x - 1 - c.x, c.y ), value );
-			else grid.set( new Coord2D( c.x, size( ).y - 1 - c.y ), value );
+			if( horizontal ) grid.set( Coord2D.of( size( ).x - 1 - c.x, c.y ), value );
+			else grid.set( Coord2D.of( c.x, size( ).y - 1 - c.y ), value );
 
 		}
 		return grid;
@@ -509,7 +595,7 @@ public class CoordGrid<T> implements Iterable<Coord2D> {
 				x++;
 				final U value = mapfunc.apply( col );
 				if( defaultValue != null && !defaultValue.equals( value ) )
-					grid.set( new Coord2D( x, y ), value );
+					grid.set( Coord2D.of( x, y ), value );
 			}
 		}
 
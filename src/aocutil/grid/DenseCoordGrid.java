@@ -0,0 +1,625 @@
+package aocutil.grid;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.PackedCoord;
+import aocutil.geometry.Window2D;
+
+/**
+ * Coordinate grid of fixed size that stores its values in a flat, row-major
+ * array instead of a map. All lookups are performed using index arithmetic
+ * relative to the top left of the grid window, which avoids the hashing and
+ * boxing costs of the map-based CoordGrid for large, densely filled grids.
+ * <br/><br/>
+ * The window of a dense grid is always fixed, values can only be stored at
+ * coordinates within the window.
+ *
+ * @author Joris
+ *
+ * @param <T> The data type of the grid
+ */
+public class DenseCoordGrid<T> extends CoordGrid<T> {
+	/** The grid values in row-major order, null for cells without a value */
+	protected Object[] cells;
+
+	/** The number of cells that currently hold a value */
+	protected int stored;
+
+	/** The top left coordinate of the window, cached for index computations */
+	protected int minX, minY;
+
+	/** The dimensions of the window, cached for index computations */
+	protected int width, height;
+
+	/**
+	 * Creates a new dense grid that spans (0,0) to (width-1, height-1)
+	 *
+	 * @param width The grid width
+	 * @param height The grid height
+	 * @param defaultValue The default value for non-assigned coordinates
+	 */
+	public DenseCoordGrid( final int width, final int height, final T defaultValue ) {
+		this( new Window2D( width, height ), defaultValue );
+	}
+
+	/**
+	 * Creates a new dense grid that spans the specified window
+	 *
+	 * @param window The window of the grid, must be fixed and non-empty
+	 * @param defaultValue The default value for non-assigned coordinates
+	 */
+	public DenseCoordGrid( final Window2D window, final T defaultValue ) {
+		super( Collections.emptyMap( ), window, defaultValue );
+		if( window == null || window.empty( ) || !window.isFixed( ) ) throw new IllegalArgumentException( "A dense grid requires a fixed, non-empty window" );
+		allocate( );
+	}
+
+	/**
+	 * Allocates the cell array for the current window of the grid
+	 */
+	private void allocate( ) {
+		final Window2D w = window( );
+		minX = w.getMinX( );
+		minY = w.getMinY( );
+		width = w.getWidth( );
+		height = w.getHeight( );
+		cells = new Object[ width * height ];
+		stored = 0;
+	}
+
+	/**
+	 * Checks whether the position is within the window of this grid
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True iff the position (x,y) is in the grid window
+	 */
+	protected boolean inWindow( final int x, final int y ) {
+		return x >= minX && y >= minY && x < minX + width && y < minY + height;
+	}
+
+	/**
+	 * Computes the array index of the given position. Does not check whether
+	 * the position is within the window.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The index of the cell in the row-major cell array
+	 */
+	protected int toIndex( final int x, final int y ) {
+		return (y - minY) * width + (x - minX);
+	}
+
+	/**
+	 * Converts a cell array index back into its coordinate
+	 *
+	 * @param index The cell index
+	 * @return The coordinate of the cell
+	 */
+	protected Coord2D toCoord( final int index ) {
+		return Coord2D.of( minX + index % width, minY + index / width );
+	}
+
+	/**
+	 * Fixes the window of the grid to the new window. Values that are within
+	 * both the old and new window are kept, all others are discarded.
+	 *
+	 * @param topleft The top left coordinate of the window
+	 * @param bottomright The bottom right coordinate of the window
+	 */
+	@Override
+	public void fixWindow( final Coord2D topleft, final Coord2D bottomright ) {
+		final Object[] oldcells = cells;
+		final int ominx = minX, ominy = minY, owidth = width;
+
+		super.fixWindow( topleft, bottomright );
+		allocate( );
+
+		// copy values that are within the new window
+		for( int i = 0; i < oldcells.length; i++ ) {
+			if( oldcells[i] == null ) continue;
+			final int x = ominx + i % owidth, y = ominy + i / owidth;
+			if( !inWindow( x, y ) ) continue;
+			cells[ toIndex( x, y ) ] = oldcells[i];
+			stored++;
+		}
+	}
+
+	/**
+	 * Not supported by dense grids as they require a fixed window
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void unfixWindow( ) {
+		throw new UnsupportedOperationException( "A dense grid cannot have a dynamic window" );
+	}
+
+	/**
+	 * Adds a new value to the grid at the specified coordinate
+	 *
+	 * @param coord The coordinate to set the value for
+	 * @param value The value to set
+	 * @return The previous value that was set, null if it was not set before
+	 * @throws IllegalArgumentException if the coordinate is outside the grid
+	 */
+	@Override
+	public T set( final Coord2D coord, final T value ) {
+		return set( coord.x, coord.y, value );
+	}
+
+	/**
+	 * Adds a new value at the specified x and y position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param value The value to set at (x,y)
+	 * @return The previous value that was set, null if it was not set before
+	 * @throws IllegalArgumentException if the position is outside the grid
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T set( final int x, final int y, final T value ) {
+		if( value == null ) throw new NullPointerException( "Value cannot be set to null (use unset)" );
+		if( !inWindow( x, y ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: (" + x + "," + y + ")" );
+
+		final int idx = toIndex( x, y );
+		final Object old = cells[idx];
+		cells[idx] = value;
+		if( old == null ) stored++;
+		return (T)old;
+	}
+
+	/**
+	 * Retrieves the value at the given x and y position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The value stored at (x,y) or the default value if not set
+	 */
+	@Override
+	public T get( final int x, final int y ) {
+		return get( x, y, defaultValue );
+	}
+
+	/**
+	 * Retrieves the value for the given coordinate. Uses specific default value
+	 * if the coordinate has no value in the grid
+	 *
+	 * @param coord The coordinate to get the value for
+	 * @param valDefault The default value to return if the coordinate has no
+	 *   value in the grid, overrides class-level default value
+	 * @return The value stored at the coordinate or the default value
+	 */
+	@Override
+	public T get( final Coord2D coord, final T valDefault ) {
+		return get( coord.x, coord.y, valDefault );
+	}
+
+	/**
+	 * Retrieves the value at the given x and y position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param valDefault The value to return if the position has no value
+	 * @return The value stored at (x,y) or the default value if not set
+	 */
+	@SuppressWarnings("unchecked")
+	public T get( final int x, final int y, final T valDefault ) {
+		if( !inWindow( x, y ) ) return valDefault;
+		final Object value = cells[ toIndex( x, y ) ];
+		return value != null ? (T)value : valDefault;
+	}
+
+	/**
+	 * Clears the value for a given coordinate
+	 *
+	 * @param coord The coordinate to remove from the grid
+	 * @return The previous value that was stored at the coordinate, can be null
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T unset( final Coord2D coord ) {
+		if( !inWindow( coord.x, coord.y ) ) return null;
+
+		final int idx = toIndex( coord.x, coord.y );
+		final Object old = cells[idx];
+		cells[idx] = null;
+		if( old != null ) stored--;
+		return (T)old;
+	}
+
+	/**
+	 * Clears an entire set of coordinates at once
+	 *
+	 * @param coords The set of coordinates to unset
+	 */
+	@Override
+	public void unsetAll( final Collection<Coord2D> coords ) {
+		for( final Coord2D c : coords ) unset( c );
+	}
+
+	/**
+	 * Counts the number of coordinates that hold the specified value, cells
+	 * without a value are counted if the value equals the default value
+	 *
+	 * @param value The value to count
+	 * @return The number of coordinates that have this value
+	 */
+	@Override
+	public long count( final T value ) {
+		if( value == null ) throw new NullPointerException( "Value to count cannot be null" );
+		final boolean isdefault = value.equals( defaultValue );
+
+		long count = 0;
+		for( final Object v : cells )
+			if( v == null ? isdefault : value.equals( v ) ) count++;
+		return count;
+	}
+
+	/**
+	 * Checks whether the specified coordinate has a value stored in the grid
+	 *
+	 * @param coord The coordinate to check
+	 * @return True iff a value is stored at the given coordinate
+	 */
+	@Override
+	public boolean hasValue( final Coord2D coord ) {
+		return inWindow( coord.x, coord.y ) && cells[ toIndex( coord.x, coord.y ) ] != null;
+	}
+
+	/**
+	 * Checks whether the packed coordinate has a value stored in the grid
+	 *
+	 * @param packed The packed coordinate, see <code>PackedCoord</code>
+	 * @return True iff a value is stored at the given coordinate
+	 */
+	@Override
+	public boolean hasValue( final long packed ) {
+		final int x = PackedCoord.unpackX( packed ), y = PackedCoord.unpackY( packed );
+		return inWindow( x, y ) && cells[ toIndex( x, y ) ] != null;
+	}
+
+	/**
+	 * Finds and returns the coordinates of all grid elements that match the
+	 * specified search value
+	 *
+	 * @param value The value to find in the grid
+	 * @return Collection of coordinates that hold the given value in the grid,
+	 *   possibly empty if no such value exists in the grid
+	 */
+	@Override
+	public Collection<Coord2D> find( final T value ) {
+		final List<Coord2D> found = new ArrayList<>( );
+		for( int i = 0; i < cells.length; i++ )
+			if( cells[i] != null && cells[i].equals( value ) ) found.add( toCoord( i ) );
+		return found;
+	}
+
+	/**
+	 * @return View of the <key, value> entries for every coordinate that holds
+	 *   a value in the grid. Entries cannot be modified through this view.
+	 */
+	@Override
+	public Set<Entry<Coord2D, T>> getEntries( ) {
+		return new AbstractSet<Entry<Coord2D,T>>( ) {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Iterator<Entry<Coord2D, T>> iterator( ) {
+				return new CellIterator<Entry<Coord2D,T>>( ) {
+					@Override protected Entry<Coord2D, T> element( final int idx ) { return new SimpleImmutableEntry<>( toCoord( idx ), (T)cells[idx] ); }
+				};
+			}
+
+			@Override public int size( ) { return stored; }
+		};
+	}
+
+	/**
+	 * @return View of the coordinates that have a value in the grid
+	 */
+	@Override
+	public Set<Coord2D> getKeys( ) {
+		return new AbstractSet<Coord2D>( ) {
+			@Override
+			public Iterator<Coord2D> iterator( ) {
+				return new CellIterator<Coord2D>( ) {
+					@Override protected Coord2D element( final int idx ) { return toCoord( idx ); }
+				};
+			}
+
+			@Override public boolean contains( final Object o ) { return o instanceof Coord2D && hasValue( (Coord2D)o ); }
+			@Override public int size( ) { return stored; }
+		};
+	}
+
+	/**
+	 * @return View of the values in the grid
+	 */
+	@Override
+	public Collection<T> getValues( ) {
+		return new AbstractCollection<T>( ) {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Iterator<T> iterator( ) {
+				return new CellIterator<T>( ) {
+					@Override protected T element( final int idx ) { return (T)cells[idx]; }
+				};
+			}
+
+			@Override public int size( ) { return stored; }
+		};
+	}
+
+	/**
+	 * Retrieves all grid neighbours of the specified coordinate that are within
+	 * the grid window
+	 *
+	 * @param coord The coordinate
+	 * @param diagonal True to include diagonal neighbours
+	 * @param validneighbour Validation function that includes/excludes
+	 *   neighbouring coords based upon their value, a result of true will
+	 *   include the coordinate
+	 * @return All neighbours within the grid of the given coordinate.
+	 * @throw {@link IllegalArgumentException} if the coordinate itself it
+	 *   outside the grid
+	 */
+	@Override
+	public Set<Coord2D> getNeighbours( final Coord2D coord, final boolean diagonal, final Function<Coord2D, Boolean> validneighbour ) {
+		if( !inWindow( coord.x, coord.y ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: " + coord );
+
+		final Set<Coord2D> neighbours = new HashSet<>( );
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = coord.x + Neighbours.DX[i], ny = coord.y + Neighbours.DY[i];
+			if( !inWindow( nx, ny ) ) continue;
+
+			final Coord2D n = Coord2D.of( nx, ny );
+			if( validneighbour != null && !validneighbour.apply( n ) ) continue;
+			neighbours.add( n );
+		}
+
+		return neighbours;
+	}
+
+	/**
+	 * Visits all grid neighbours of the specified position that are within the
+	 * grid window, without allocating coordinates or collections
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param diagonal True to include diagonal neighbours
+	 * @param visitor The consumer that is called with the x and y coordinate
+	 *   of every neighbour
+	 * @throw {@link IllegalArgumentException} if the position itself it
+	 *   outside the grid
+	 */
+	@Override
+	public void forEachNeighbour( final int x, final int y, final boolean diagonal, final IntIntConsumer visitor ) {
+		if( !inWindow( x, y ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: (" + x + "," + y + ")" );
+
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = x + Neighbours.DX[i], ny = y + Neighbours.DY[i];
+			if( inWindow( nx, ny ) ) visitor.accept( nx, ny );
+		}
+	}
+
+	/**
+	 * Rotates the grid in clockwise direction. The rotated grid has the same top
+	 * left coordinate, its width and height are swapped for odd rotations.
+	 *
+	 * @param rotations The number of 90 degree rotations
+	 * @return The rotated grid
+	 */
+	@Override
+	public DenseCoordGrid<T> rotate( final int rotations ) {
+		final int r = ((rotations % 4) + 4) % 4;
+		if( r == 0 ) return copy( );
+
+		final int w = r == 2 ? width : height, h = r == 2 ? height : width;
+		final DenseCoordGrid<T> grid = new DenseCoordGrid<>( new Window2D( minX, minY, minX + w - 1, minY + h - 1 ), defaultValue );
+		for( int i = 0; i < cells.length; i++ ) {
+			if( cells[i] == null ) continue;
+			final int x = i % width, y = i / width;
+
+			final int idx;
+			if( r == 1 ) idx = x * w + (w - 1 - y);
+			else if( r == 2 ) idx = (h - 1 - y) * w + (w - 1 - x);
+			else idx = (h - 1 - x) * w + y;
+			grid.cells[idx] = cells[i];
+		}
+		grid.stored = stored;
+		return grid;
+	}
+
+	/**
+	 * Flips the values in the grid
+	 *
+	 * @param horizontal True for horizontal flip, false for vertical
+	 * @return The flipped grid
+	 */
+	@Override
+	public DenseCoordGrid<T> flip( final boolean horizontal ) {
+		final DenseCoordGrid<T> grid = new DenseCoordGrid<>( window( ), defaultValue );
+		for( int i = 0; i < cells.length; i++ ) {
+			final int x = i % width, y = i / width;
+			if( horizontal ) grid.cells[ y * width + (width - 1 - x) ] = cells[i];
+			else grid.cells[ (height - 1 - y) * width + x ] = cells[i];
+		}
+		grid.stored = stored;
+		return grid;
+	}
+
+	/**
+	 * Copies the grid and all the values it contains
+	 *
+	 * @return The copy of the grid
+	 */
+	@Override
+	public DenseCoordGrid<T> copy( ) {
+		final DenseCoordGrid<T> grid = new DenseCoordGrid<>( window( ), defaultValue );
+		System.arraycopy( cells, 0, grid.cells, 0, cells.length );
+		grid.stored = stored;
+		return grid;
+	}
+
+	/**
+	 * Extracts the specified region from the grid and returns it as a new dense
+	 * grid. Note that the coordinates are both inclusive
+	 *
+	 * @param topleft The top left coordinate of the area to extract
+	 * @param bottomright The bottom right coordinate
+	 * @param relative True to return the extracted part with keys relative to
+	 *   the topleft cooridnate of the window
+	 * @return The area from top left to bottom right as a new grid
+	 */
+	@Override
+	public DenseCoordGrid<T> extract( final Coord2D topleft, final Coord2D bottomright, final boolean relative ) {
+		final Window2D w = new Window2D( topleft, bottomright );
+		final DenseCoordGrid<T> ex = new DenseCoordGrid<>( relative ? new Window2D( w.getWidth( ), w.getHeight( ) ) : w, defaultValue );
+
+		// copy the values in the overlap of both windows
+		final int dx = relative ? w.getMinX( ) : 0, dy = relative ? w.getMinY( ) : 0;
+		for( int y = Math.max( minY, w.getMinY( ) ); y <= Math.min( minY + height - 1, w.getMaxY( ) ); y++ ) {
+			for( int x = Math.max( minX, w.getMinX( ) ); x <= Math.min( minX + width - 1, w.getMaxX( ) ); x++ ) {
+				final Object value = cells[ toIndex( x, y ) ];
+				if( value == null ) continue;
+				ex.cells[ ex.toIndex( x - dx, y - dy ) ] = value;
+				ex.stored++;
+			}
+		}
+
+		return ex;
+	}
+
+	/**
+	 * Returns a stream of all the coordinates in the grid window
+	 *
+	 * @param parallel True to allow parallel streaming of the coordinates in
+	 *   the grid
+	 * @return The stream of coordinates in this grid
+	 */
+	@Override
+	public Stream<Coord2D> stream( final boolean parallel ) {
+		return StreamSupport.stream(
+				Spliterators.spliterator( iterator( ), cells.length, Spliterator.DISTINCT |Spliterator.IMMUTABLE | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SUBSIZED )
+				, parallel );
+	}
+
+	/**
+	 * Creates a dense grid from an existing coordinate grid. The dense grid
+	 * spans the current window of the grid.
+	 *
+	 * @param <U> The data type of the grid
+	 * @param grid The grid to copy
+	 * @return The dense copy of the grid
+	 */
+	public static <U> DenseCoordGrid<U> fromCoordGrid( final CoordGrid<U> grid ) {
+		final Window2D w = grid.window( );
+		if( w.empty( ) ) throw new IllegalArgumentException( "Cannot create a dense grid from an empty grid" );
+
+		final DenseCoordGrid<U> dense = new DenseCoordGrid<>( new Window2D( w.getMinCoord( ), w.getMaxCoord( ) ), grid.getDefaultValue( ) );
+		for( final Entry<Coord2D, U> e : grid.getEntries( ) )
+			dense.set( e.getKey( ), e.getValue( ) );
+		return dense;
+	}
+
+	/**
+	 * Constructs a dense grid from a grid, represented by a list of Strings
+	 * for each row. Columns are separated by the given separator, which may be
+	 * empty for character-based grids that hold a single value per char. The
+	 * grid window spans the number of rows and the widest row of the input.
+	 *
+	 * @param <U> The type of the data elements to be contained
+	 * @param input The list of strings that describe a n x m grid, one string
+	 *   per row
+	 * @param separator The column separator as regex, "" or null for simple,
+	 *   single character columns
+	 * @param mapfunc The function to map each character into a value
+	 * @param defaultValue The default value to set for the empty entries
+	 * @return The dense grid that is constructed from the list of strings
+	 */
+	public static <U> DenseCoordGrid<U> fromStringList( final List<String> input, final String separator, final Function<String, U> mapfunc, final U defaultValue ) {
+		// fill in blank separator iff it is null
+		final String sep = separator != null ? separator : "";
+
+		// split rows first to determine the grid dimensions
+		final List<String[]> rows = new ArrayList<>( input.size( ) );
+		int width = 0;
+		for( final String row : input ) {
+			final String[] cols = row.split( sep );
+			rows.add( cols );
+			width = Math.max( width, cols.length );
+		}
+
+		final DenseCoordGrid<U> grid = new DenseCoordGrid<>( width, rows.size( ), defaultValue );
+		for( int y = 0; y < rows.size( ); y++ ) {
+			final String[] cols = rows.get( y );
+			for( int x = 0; x < cols.length; x++ ) {
+				final U value = mapfunc.apply( cols[x] );
+				if( value != null && !value.equals( defaultValue ) ) grid.set( x, y, value );
+			}
+		}
+
+		return grid;
+	}
+
+	/**
+	 * Iterator over all cells in the grid that hold a value
+	 *
+	 * @param <E> The type of element to return per cell
+	 */
+	private abstract class CellIterator<E> implements Iterator<E> {
+		/** The index of the next cell with a value */
+		private int next = advance( 0 );
+
+		/**
+		 * Finds the first cell that holds a value, starting from the given index
+		 *
+		 * @param from The index to start searching from
+		 * @return The index of the cell or the length of the cell array if no
+		 *   further cells hold a value
+		 */
+		private int advance( int from ) {
+			while( from < cells.length && cells[from] == null ) from++;
+			return from;
+		}
+
+		/**
+		 * Maps the cell at the index to the element that is returned
+		 *
+		 * @param idx The cell index
+		 * @return The element
+		 */
+		protected abstract E element( final int idx );
+
+		@Override
+		public boolean hasNext( ) {
+			return next < cells.length;
+		}
+
+		@Override
+		public E next( ) {
+			if( !hasNext( ) ) throw new NoSuchElementException( );
+			final E e = element( next );
+			next = advance( next + 1 );
+			return e;
+		}
+	}
+}
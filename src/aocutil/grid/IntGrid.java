@@ -0,0 +1,212 @@
+package aocutil.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.Window2D;
+
+/**
+ * Fixed-size grid of int values that is backed by a flat int array. Offers
+ * allocation-free accessors to avoid the boxing costs of a
+ * <code>CoordGrid&lt;Integer&gt;</code>.
+ *
+ * @author Joris
+ */
+public class IntGrid extends PrimitiveGrid {
+	/** The grid values in row-major order */
+	protected final int[] cells;
+
+	/** The default value for all cells that have not been assigned */
+	protected final int defaultValue;
+
+	/**
+	 * Creates a new int grid that spans (0,0) to (width-1, height-1)
+	 *
+	 * @param width The grid width
+	 * @param height The grid height
+	 * @param defaultValue The initial value of all cells
+	 */
+	public IntGrid( final int width, final int height, final int defaultValue ) {
+		this( new Window2D( width, height ), defaultValue );
+	}
+
+	/**
+	 * Creates a new int grid that spans the given window
+	 *
+	 * @param window The grid window
+	 * @param defaultValue The initial value of all cells
+	 */
+	public IntGrid( final Window2D window, final int defaultValue ) {
+		super( window );
+		this.defaultValue = defaultValue;
+		this.cells = new int[ width * height ];
+		if( defaultValue != 0 ) Arrays.fill( cells, defaultValue );
+	}
+
+	/**
+	 * Copies an existing grid
+	 *
+	 * @param grid The grid to copy
+	 */
+	public IntGrid( final IntGrid grid ) {
+		super( grid.window );
+		this.defaultValue = grid.defaultValue;
+		this.cells = grid.cells.clone( );
+	}
+
+	/** @return The default value of the grid */
+	public int getDefaultValue( ) {
+		return defaultValue;
+	}
+
+	/**
+	 * Retrieves the value at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The value at (x,y) or the default value if (x,y) is outside the
+	 *   grid
+	 */
+	public int getInt( final int x, final int y ) {
+		return contains( x, y ) ? cells[ toIndex( x, y ) ] : defaultValue;
+	}
+
+	/**
+	 * Retrieves the value at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @return The value at the coordinate or the default value if it is
+	 *   outside the grid
+	 */
+	public int getInt( final Coord2D coord ) {
+		return getInt( coord.x, coord.y );
+	}
+
+	/**
+	 * Sets the value at the given position
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param value The value to set
+	 * @return The previous value at (x,y)
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	public int setInt( final int x, final int y, final int value ) {
+		checkBounds( x, y );
+		final int idx = toIndex( x, y );
+		final int old = cells[idx];
+		cells[idx] = value;
+		return old;
+	}
+
+	/**
+	 * Sets the value at the given coordinate
+	 *
+	 * @param coord The coordinate
+	 * @param value The value to set
+	 * @return The previous value at the coordinate
+	 * @throws IllegalArgumentException if the coordinate is outside the grid
+	 */
+	public int setInt( final Coord2D coord, final int value ) {
+		return setInt( coord.x, coord.y, value );
+	}
+
+	/**
+	 * Retrieves the value of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @return The value of the cell
+	 * @throws IndexOutOfBoundsException if the index is not a valid cell index
+	 */
+	public int getIntAt( final int index ) {
+		return cells[index];
+	}
+
+	/**
+	 * Sets the value of the cell with the given index
+	 *
+	 * @param index The cell index
+	 * @param value The value to set
+	 * @return The previous value of the cell
+	 * @throws IndexOutOfBoundsException if the index is not a valid cell index
+	 */
+	public int setIntAt( final int index, final int value ) {
+		final int old = cells[index];
+		cells[index] = value;
+		return old;
+	}
+
+	/**
+	 * Counts the number of cells that hold the specified value
+	 *
+	 * @param value The value to count
+	 * @return The number of cells with this value
+	 */
+	public long count( final int value ) {
+		long count = 0;
+		for( final int v : cells ) if( v == value ) count++;
+		return count;
+	}
+
+	/**
+	 * Finds the coordinates of all cells that hold the specified value
+	 *
+	 * @param value The value to find
+	 * @return The coordinates of the cells with the value, possibly empty
+	 */
+	public Collection<Coord2D> find( final int value ) {
+		final List<Coord2D> found = new ArrayList<>( );
+		for( int i = 0; i < cells.length; i++ ) if( cells[i] == value ) found.add( toCoord( i ) );
+		return found;
+	}
+
+	/** @return A copy of this grid */
+	public IntGrid copy( ) {
+		return new IntGrid( this );
+	}
+
+	/**
+	 * Converts this grid into a CoordGrid of boxed Integers. Cells that hold
+	 * the default value are not stored in the CoordGrid.
+	 *
+	 * @return The CoordGrid with the same window and values
+	 */
+	public CoordGrid<Integer> toCoordGrid( ) {
+		final CoordGrid<Integer> grid = new CoordGrid<>( defaultValue );
+		grid.fixWindow( window );
+		for( int i = 0; i < cells.length; i++ )
+			if( cells[i] != defaultValue ) grid.set( toCoord( i ), cells[i] );
+		return grid;
+	}
+
+	/**
+	 * Constructs an int grid from a char grid of single digits. Cells beyond
+	 * the end of shorter rows get default value -1.
+	 *
+	 * @param input The list of row strings that describe the digits on that row
+	 * @return The IntGrid with the values as read from the input
+	 * @throws NumberFormatException if the input contains a character that is
+	 *   not a digit
+	 */
+	public static IntGrid fromDigitGrid( final List<String> input ) {
+		final IntGrid grid = new IntGrid( windowOf( input ), -1 );
+		for( int y = 0; y < input.size( ); y++ ) {
+			final String row = input.get( y );
+			for( int x = 0; x < row.length( ); x++ ) {
+				final int digit = Character.digit( row.charAt( x ), 10 );
+				if( digit < 0 ) throw new NumberFormatException( "Not a digit at (" + x + "," + y + "): " + row.charAt( x ) );
+				grid.cells[ grid.toIndex( x, y ) ] = digit;
+			}
+		}
+		return grid;
+	}
+
+	/** @return The grid as string, values separated by a space */
+	@Override
+	public String toString( ) {
+		return toString( i -> (i % width > 0 ? " " : "") + cells[i] );
+	}
+}
@@ -0,0 +1,18 @@
+package aocutil.grid;
+
+/**
+ * Operation that accepts two int values and returns no result. Used to visit
+ * grid positions without allocating a coordinate per position.
+ * 
+ * @author Joris
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+	/**
+	 * Performs the operation on the given arguments
+	 * 
+	 * @param x The first argument, e.g. the x coordinate
+	 * @param y The second argument, e.g. the y coordinate
+	 */
+	void accept( final int x, final int y );
+}
@@ -0,0 +1,28 @@
+package aocutil.grid;
+
+/**
+ * Relative offsets of the neighbours of a grid position, shared by the grid
+ * implementations to iterate neighbours without allocating coordinates. The
+ * first four offsets are the orthogonal neighbours, the last four the
+ * diagonal ones, in the same order as <code>Coord2D.getAdjacent</code>.
+ * 
+ * @author Joris
+ */
+final class Neighbours {
+	/** The horizontal offsets */
+	static final int[] DX = { -1, 1,  0, 0, -1, -1,  1, 1 };
+	
+	/** The vertical offsets */
+	static final int[] DY = {  0, 0, -1, 1, -1,  1, -1, 1 };
+	
+	/**
+	 * @param diagonal True to include diagonal neighbours
+	 * @return The number of neighbour offsets to consider
+	 */
+	static int count( final boolean diagonal ) {
+		return diagonal ? 8 : 4;
+	}
+	
+	/** Not instantiable */
+	private Neighbours( ) { }
+}
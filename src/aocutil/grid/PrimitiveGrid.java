@@ -0,0 +1,209 @@
+package aocutil.grid;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import aocutil.geometry.Coord2D;
+import aocutil.geometry.Window2D;
+
+/**
+ * Base class for fixed-size grids that store primitive values in a flat,
+ * row-major array. Offers the index arithmetic that maps grid positions onto
+ * array indices, subclasses provide the actual value storage.
+ *
+ * @author Joris
+ */
+public abstract class PrimitiveGrid implements Iterable<Coord2D> {
+	/** The window spanned by the grid */
+	protected final Window2D window;
+
+	/** The top left coordinate of the window, cached for index computations */
+	protected final int minX, minY;
+
+	/** The dimensions of the grid */
+	protected final int width, height;
+
+	/**
+	 * Creates a new grid that spans the given window
+	 *
+	 * @param window The grid window, must be non-empty
+	 */
+	protected PrimitiveGrid( final Window2D window ) {
+		if( window == null || window.empty( ) ) throw new IllegalArgumentException( "A primitive grid requires a non-empty window" );
+		this.window = new Window2D( window.getMinCoord( ), window.getMaxCoord( ) );
+		this.minX = window.getMinX( );
+		this.minY = window.getMinY( );
+		this.width = window.getWidth( );
+		this.height = window.getHeight( );
+	}
+
+	/**
+	 * Checks whether the position is within the window of this grid
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True iff the position (x,y) is in the grid window
+	 */
+	public boolean contains( final int x, final int y ) {
+		return x >= minX && y >= minY && x < minX + width && y < minY + height;
+	}
+
+	/**
+	 * Checks whether the coordinate is within the window of this grid
+	 *
+	 * @param coord The coordinate to test
+	 * @return True iff the coordinate is in the grid window
+	 */
+	public boolean contains( final Coord2D coord ) {
+		return contains( coord.x, coord.y );
+	}
+
+	/**
+	 * Computes the array index of the given position. Does not check whether
+	 * the position is within the window.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The index of the cell in the row-major cell array
+	 */
+	protected int toIndex( final int x, final int y ) {
+		return (y - minY) * width + (x - minX);
+	}
+
+	/**
+	 * Converts a cell array index back into its coordinate
+	 *
+	 * @param index The cell index
+	 * @return The coordinate of the cell
+	 */
+	protected Coord2D toCoord( final int index ) {
+		return Coord2D.of( minX + index % width, minY + index / width );
+	}
+
+	/**
+	 * Returns the cell index of the given position, which can be used with the
+	 * index-based accessors and neighbour iteration of the grid
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The index of the cell
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	public int indexOf( final int x, final int y ) {
+		checkBounds( x, y );
+		return toIndex( x, y );
+	}
+
+	/**
+	 * Visits all neighbours of the specified position that are within the grid
+	 * window, without allocating coordinates or collections
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param diagonal True to include diagonal neighbours
+	 * @param visitor The consumer that is called with the x and y coordinate
+	 *   of every neighbour
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	public void forEachNeighbour( final int x, final int y, final boolean diagonal, final IntIntConsumer visitor ) {
+		checkBounds( x, y );
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = x + Neighbours.DX[i], ny = y + Neighbours.DY[i];
+			if( contains( nx, ny ) ) visitor.accept( nx, ny );
+		}
+	}
+
+	/**
+	 * Visits the cell indices of all neighbours of the specified cell that are
+	 * within the grid window, without allocating coordinates or collections
+	 *
+	 * @param index The cell index
+	 * @param diagonal True to include diagonal neighbours
+	 * @param visitor The consumer that is called with the cell index of every
+	 *   neighbour
+	 * @throws IndexOutOfBoundsException if the index is not a valid cell index
+	 */
+	public void forEachNeighbourIndex( final int index, final boolean diagonal, final IntConsumer visitor ) {
+		if( index < 0 || index >= width * height ) throw new IndexOutOfBoundsException( "Invalid cell index: " + index );
+		final int x = index % width, y = index / width;
+		for( int i = 0; i < Neighbours.count( diagonal ); i++ ) {
+			final int nx = x + Neighbours.DX[i], ny = y + Neighbours.DY[i];
+			if( nx >= 0 && ny >= 0 && nx < width && ny < height ) visitor.accept( index + Neighbours.DY[i] * width + Neighbours.DX[i] );
+		}
+	}
+
+	/**
+	 * Throws an exception if the position is not within the grid window
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @throws IllegalArgumentException if (x,y) is outside the grid
+	 */
+	protected void checkBounds( final int x, final int y ) {
+		if( !contains( x, y ) ) throw new IllegalArgumentException( "The coordinate is not within the grid: (" + x + "," + y + ")" );
+	}
+
+	/** @return The size of the grid as 2D coordinate */
+	public Coord2D size( ) {
+		return window.size( );
+	}
+
+	/** @return The window spanned by this grid */
+	public Window2D window( ) {
+		return window;
+	}
+
+	/** @return The grid width */
+	public int getWidth( ) {
+		return width;
+	}
+
+	/** @return The grid height */
+	public int getHeight( ) {
+		return height;
+	}
+
+	/**
+	 * Creates an Iterator that goes over all coordinates in the grid
+	 *
+	 * @return An iterator of coordinates that goes over all coordinates in the
+	 * grid span, from (minX,minY) to (maxX, maxY). Iteration is performed
+	 * horizontally, i.e. increasing x until end of row.
+	 */
+	@Override
+	public Iterator<Coord2D> iterator( ) {
+		return window.iterator( );
+	}
+
+	/**
+	 * Determines the grid window for a grid that is read from a list of strings
+	 * with a single character per column
+	 *
+	 * @param input The list of row strings
+	 * @return The window from (0,0) up to the widest row and number of rows
+	 */
+	protected static Window2D windowOf( final List<String> input ) {
+		int width = 0;
+		for( final String row : input ) width = Math.max( width, row.length( ) );
+		return new Window2D( width, input.size( ) );
+	}
+
+	/**
+	 * Generates a grid-like output of the grid using the specified function to
+	 * convert each cell into a string
+	 *
+	 * @param cellfunc Function that returns the string of the cell at the
+	 *   given index
+	 * @return The grid as string, one line per row
+	 */
+	protected String toString( final IntFunction<String> cellfunc ) {
+		final StringBuilder sb = new StringBuilder( (width + 1) * height );
+		for( int i = 0; i < width * height; i++ ) {
+			if( i > 0 && i % width == 0 ) sb.append( '\n' );
+			sb.append( cellfunc.apply( i ) );
+		}
+		return sb.toString( );
+	}
+}